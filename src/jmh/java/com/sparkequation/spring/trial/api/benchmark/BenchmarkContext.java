@@ -0,0 +1,101 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.ApiApplication;
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.service.ProductBatchService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Starts the application against a private in-memory H2 database, unless given another spring.datasource.url, seeded
+ * by data.sql, and builds benchmark data that references the seeded brands and categories.
+ */
+final class BenchmarkContext {
+
+    private final static int SEEDED_BRANDS = 10;
+    private final static int SEEDED_CATEGORIES = 6;
+    private final static String DATASOURCE_URL = "spring.datasource.url=";
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String name, String... properties) {
+        return start(WebApplicationType.NONE, name, properties);
+    }
+
+    static ConfigurableApplicationContext startWeb(String name, String... properties) {
+        return start(WebApplicationType.SERVLET, name, properties);
+    }
+
+    /**
+     * Adds {@code count} products on top of the data.sql catalog, each in {@code categoriesPerProduct} categories.
+     */
+    static void seed(ConfigurableApplicationContext context, int count, int categoriesPerProduct) {
+        context.getBean(ProductBatchService.class).addProducts(products(count, categoriesPerProduct));
+    }
+
+    private static ConfigurableApplicationContext start(
+            WebApplicationType webApplicationType,
+            String name,
+            String... properties
+    ) {
+        final List<String> allProperties = new ArrayList<>(List.of(
+                "spring.h2.console.enabled=false",
+                "server.port=0",
+                "logging.level.root=WARN"
+        ));
+        allProperties.addAll(List.of(properties));
+        // A repeated argument would be read as a list, a benchmark may bring its own database instead.
+        if (allProperties.stream().noneMatch(property -> property.startsWith(DATASOURCE_URL))) {
+            allProperties.add(DATASOURCE_URL + "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        }
+        // Passed as arguments: default properties would lose to application.properties.
+        return new SpringApplicationBuilder(ApiApplication.class).web(webApplicationType)
+                                                                 .run(allProperties.stream()
+                                                                                   .map(property -> "--" + property)
+                                                                                   .toArray(String[]::new));
+    }
+
+    static List<Product> products(int count, int categoriesPerProduct) {
+        final List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(product(i, categoriesPerProduct));
+        }
+        return products;
+    }
+
+    static Product product(int seed, int categoriesPerProduct) {
+        final Product product = new Product();
+        product.setName("Benchmark product " + seed);
+        product.setRating(seed % 10);
+        product.setFeatured(seed % 7 == 0);
+        product.setItemsInStock(seed % 100);
+        product.setExpirationDate(Date.from(Instant.now().plus(60, ChronoUnit.DAYS)));
+        product.setReceiptDate(new Date());
+        final Brand brand = new Brand();
+        brand.setId(seed % SEEDED_BRANDS + 1);
+        brand.setName("Brand " + brand.getId());
+        brand.setCountry("Country " + brand.getId());
+        product.setBrand(brand);
+        final Set<Category> categories = new HashSet<>();
+        for (int i = 0; i < categoriesPerProduct; i++) {
+            final Category category = new Category();
+            category.setId((seed + i) % SEEDED_CATEGORIES + 1);
+            category.setName("Category " + category.getId());
+            categories.add(category);
+        }
+        product.setCategories(categories);
+        return product;
+    }
+}
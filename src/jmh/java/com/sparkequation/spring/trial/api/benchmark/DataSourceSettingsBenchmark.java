@@ -0,0 +1,174 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBatchResult;
+import com.sparkequation.spring.trial.api.model.ProductChangeBatch;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import com.sparkequation.spring.trial.api.service.ProductBatchService;
+import com.sparkequation.spring.trial.api.service.ProductChangeService;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The settings of the perf profile, each against the profile without it. {@code perf} is the profile as is; the
+ * other runs put back the default of one setting, so each setting is justified by the difference to {@code perf} in
+ * the benchmark it is meant for:
+ * <ul>
+ * <li>{@code default-h2-cache}: random reads of PRODUCT rows from a file database larger than the default page cache,
+ * without the product cache in front</li>
+ * <li>{@code no-jdbc-batching}: batch inserts</li>
+ * <li>{@code default-pool}: the product readers next to the change feed readers, which the bulkhead doesn't
+ * limit</li>
+ * <li>{@code open-in-view}: the page request, whose connection is otherwise released before rendering</li>
+ * </ul>
+ * Seeding the catalog dominates the run time: for the settings other than the page cache a smaller catalog does, e.g.
+ * {@code -p catalogSize=5000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DataSourceSettingsBenchmark {
+
+    private final static int BATCH_SIZE = 200;
+
+    @Param({"100000"})
+    private int catalogSize;
+
+    @Param({"perf", "default-h2-cache", "no-jdbc-batching", "default-pool", "open-in-view"})
+    private String settings;
+
+    private Path databaseDirectory;
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductBatchService productBatchService;
+    private ProductChangeService productChangeService;
+    private MockMvc mockMvc;
+    private int[] productIds;
+    private List<Product> batch;
+    private int seed;
+
+    @Setup(Level.Trial)
+    public void startContext() throws IOException {
+        databaseDirectory = Files.createTempDirectory("settings-" + settings);
+        final List<String> properties = new ArrayList<>(List.of(
+                "spring.profiles.active=perf",
+                "spring.datasource.url=jdbc:h2:file:" + databaseDirectory.resolve("catalog") + ";${api.h2.settings}",
+                "api.cache.products=maximumSize=0"
+        ));
+        properties.addAll(overrides(settings));
+        context = BenchmarkContext.startWeb("settings-" + settings, properties.toArray(String[]::new));
+        BenchmarkContext.seed(context, catalogSize, 3);
+        productService = context.getBean(ProductService.class);
+        productBatchService = context.getBean(ProductBatchService.class);
+        productChangeService = context.getBean(ProductChangeService.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        final List<Integer> ids = context.getBean(ProductRepository.class)
+                                         .findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+        productIds = ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void createBatch() {
+        batch = BenchmarkContext.products(BATCH_SIZE, 3);
+        batch.forEach(product -> product.setName("Settings product " + seed++));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(databaseDirectory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Integer getProductVersion() {
+        return productService.getProductVersion(productIds[ThreadLocalRandom.current().nextInt(productIds.length)]);
+    }
+
+    @Benchmark
+    public ProductBatchResult addProducts() {
+        return productBatchService.addProducts(batch);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public MvcResult getProductPageRequest() throws Exception {
+        return mockMvc.perform(get("/api/product/page").param("size", "50")).andReturn();
+    }
+
+    @Benchmark
+    @Group("pool")
+    @GroupThreads(12)
+    public ProductPage readProducts() {
+        return productService.getProductPage(null, 50);
+    }
+
+    @Benchmark
+    @Group("pool")
+    @GroupThreads(4)
+    public ProductChangeBatch readChanges() {
+        return productChangeService.getChanges(0, 100);
+    }
+
+    private static List<String> overrides(String settings) {
+        switch (settings) {
+            case "default-h2-cache":
+                return List.of("api.h2.settings=CACHE_SIZE=16384;QUERY_CACHE_SIZE=8");
+            case "no-jdbc-batching":
+                return List.of(
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=1",
+                        "spring.jpa.properties.hibernate.order_inserts=false",
+                        "spring.jpa.properties.hibernate.order_updates=false"
+                );
+            case "default-pool":
+                return List.of(
+                        "spring.datasource.hikari.maximum-pool-size=10",
+                        "spring.datasource.hikari.minimum-idle=10"
+                );
+            case "open-in-view":
+                return List.of("spring.jpa.open-in-view=true");
+            default:
+                return List.of();
+        }
+    }
+}
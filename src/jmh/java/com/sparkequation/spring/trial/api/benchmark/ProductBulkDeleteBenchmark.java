@@ -0,0 +1,79 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBulkDeleteProgress;
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+import com.sparkequation.spring.trial.api.service.ProductBatchService;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Products per second removed through one {@link ProductService#deleteProductById} transaction per product versus
+ * the chunked, set-based {@link ProductBatchService#deleteProducts}, which also archives them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ProductBulkDeleteBenchmark {
+
+    private final static int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductBatchService productBatchService;
+    private List<Integer> ids;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start("bulk-delete");
+        productService = context.getBean(ProductService.class);
+        productBatchService = context.getBean(ProductBatchService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void addProducts() {
+        final List<Product> products = BenchmarkContext.products(ROWS, 2);
+        productBatchService.addProducts(products);
+        ids = products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleProductDeletes() {
+        ids.forEach(productService::deleteProductById);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ProductBulkDeleteProgress bulkArchive() {
+        final ProductSelection selection = new ProductSelection();
+        selection.setIds(ids);
+        return productBatchService.deleteProducts(selection, true, progress -> {
+        });
+    }
+}
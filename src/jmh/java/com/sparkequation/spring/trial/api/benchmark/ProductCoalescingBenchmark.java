@@ -0,0 +1,120 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of identical reads, all started at once, with and without the single-flight coalescing and with the
+ * product cache off. The {@code statements} and {@code bursts} counters are totals per iteration, the statements
+ * per burst are their ratio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductCoalescingBenchmark {
+
+    private final static int PRODUCT_ID = 1;
+
+    @Param({"64"})
+    private int burstSize;
+
+    @Param({"false", "true"})
+    private boolean singleFlight;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private Statistics statistics;
+    private ExecutorService executor;
+    private ProductFilter filter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+        public long statements;
+        public long bursts;
+    }
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start(
+                "coalescing-" + singleFlight,
+                "api.execution.single-flight=" + singleFlight,
+                // A cache of size 0 still holds an entry until its eviction runs, an expired one is never read.
+                "api.cache.products=expireAfterWrite=0s"
+        );
+        BenchmarkContext.seed(context, 10000, 3);
+        productService = context.getBean(ProductService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        executor = Executors.newFixedThreadPool(burstSize);
+        filter = new ProductFilter();
+        filter.setBrandId(3);
+        filter.setSort("rating");
+        filter.setDirection("desc");
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Object> getProductByIdBurst(Statements statements) throws Exception {
+        return burst(() -> productService.getProductById(PRODUCT_ID), statements);
+    }
+
+    @Benchmark
+    public List<Object> searchProductsBurst(Statements statements) throws Exception {
+        return burst(() -> productService.searchProducts(filter), statements);
+    }
+
+    private List<Object> burst(Callable<Object> read, Statements statements) throws Exception {
+        final long before = statistics.getPrepareStatementCount();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Object>> futures = new ArrayList<>(burstSize);
+        for (int i = 0; i < burstSize; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return read.call();
+            }));
+        }
+        start.countDown();
+        final List<Object> results = new ArrayList<>(burstSize);
+        for (Future<Object> future : futures) {
+            results.add(future.get());
+        }
+        statements.statements += statistics.getPrepareStatementCount() - before;
+        statements.bursts++;
+        return results;
+    }
+}
@@ -0,0 +1,105 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.sparkequation.spring.trial.api.model.Product;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU and bytes on the wire of a listing of 1000 products in each encoding the API negotiates, with and without
+ * the gzip compression the server applies to larger responses. The size of the last payload is reported as the
+ * {@code wireBytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductEncodingBenchmark {
+
+    private final static int LIST_SIZE = 1000;
+    private final static int CATEGORIES_PER_PRODUCT = 3;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"false", "true"})
+    private boolean afterburner;
+
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+        }
+    }
+
+    @Setup
+    public void createProducts() {
+        final Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json().factory(factory(format));
+        if (afterburner) {
+            builder.modulesToInstall(new AfterburnerModule());
+        }
+        objectMapper = builder.build();
+        products = BenchmarkContext.products(LIST_SIZE, CATEGORIES_PER_PRODUCT);
+    }
+
+    @Benchmark
+    public byte[] encodeProducts(Payload payload) throws IOException {
+        final byte[] encoded = objectMapper.writeValueAsBytes(products);
+        final byte[] sent = gzip ? gzip(encoded) : encoded;
+        payload.wireBytes = sent.length;
+        return sent;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
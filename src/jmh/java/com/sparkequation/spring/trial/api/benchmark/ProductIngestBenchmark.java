@@ -0,0 +1,72 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBatchResult;
+import com.sparkequation.spring.trial.api.service.ProductBatchService;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second inserted through one {@link ProductService#addProduct} transaction per product versus the
+ * chunked {@link ProductBatchService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ProductIngestBenchmark {
+
+    private final static int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductBatchService productBatchService;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start("ingest");
+        productService = context.getBean(ProductService.class);
+        productBatchService = context.getBean(ProductBatchService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createProducts() {
+        products = BenchmarkContext.products(ROWS, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleProductInserts() {
+        products.forEach(productService::addProduct);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ProductBatchResult batchInsert() {
+        return productBatchService.addProducts(products);
+    }
+}
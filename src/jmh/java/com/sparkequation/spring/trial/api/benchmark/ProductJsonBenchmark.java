@@ -0,0 +1,67 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.sparkequation.spring.trial.api.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of one product and of a listing, with the object mapper configured the way Spring Boot configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductJsonBenchmark {
+
+    @Param({"1", "5"})
+    private int categoriesPerProduct;
+
+    @Param({"100", "1000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private Product product;
+    private byte[] productJson;
+    private List<Product> products;
+
+    @Setup
+    public void createProducts() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new AfterburnerModule()).build();
+        product = BenchmarkContext.product(1, categoriesPerProduct);
+        productJson = objectMapper.writeValueAsBytes(product);
+        products = BenchmarkContext.products(listSize, categoriesPerProduct);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws IOException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public Product deserializeProduct() throws IOException {
+        return objectMapper.readValue(productJson, Product.class);
+    }
+
+    @Benchmark
+    public byte[] serializeProductList() throws IOException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+}
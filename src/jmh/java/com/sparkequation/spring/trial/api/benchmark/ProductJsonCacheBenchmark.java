@@ -0,0 +1,87 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The JSON reads with the rendered products cached against the same reads rendering every product, i.e. the
+ * product JSON cache at {@code maximumSize=0}. The products are read from the catalog snapshot, so the time left is
+ * mostly the rendering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductJsonCacheBenchmark {
+
+    @Param({"1000"})
+    private int catalogSize;
+
+    @Param({"maximumSize=0", "maximumSize=10000"})
+    private String productJsonCache;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private int[] productIds;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.startWeb(
+                "json-" + productJsonCache.replace('=', '-'),
+                "api.product.read-mode=snapshot",
+                "api.cache.product-json=" + productJsonCache
+        );
+        BenchmarkContext.seed(context, catalogSize, 3);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        final List<Integer> ids = context.getBean(ProductRepository.class)
+                                         .findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+        productIds = ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getProductById() throws Exception {
+        final int id = productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        return mockMvc.perform(get("/api/product/{id}", id)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getProductPage() throws Exception {
+        return mockMvc.perform(get("/api/product/page").param("size", "500")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getProducts() throws Exception {
+        return mockMvc.perform(get("/api/product/all")).andReturn();
+    }
+}
@@ -0,0 +1,105 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.config.ExecutionConfig;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many concurrent HTTP clients against a real Tomcat with a deliberately small thread pool, per execution mode. The
+ * sampled latencies give throughput and the tail percentiles in one run.
+ * <p>
+ * {@code virtual} needs a Java 21 runtime: add it with {@code -p mode=platform,async,virtual}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(128)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class ProductLoadBenchmark {
+
+    private final static int CATALOG_SIZE = 10000;
+
+    @Param({"platform", "async"})
+    private String mode;
+
+    @Param({"32"})
+    private int tomcatThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String productUrl;
+    private HttpRequest pageRequest;
+    private int[] productIds;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        context = BenchmarkContext.startWeb(
+                "load-" + mode,
+                ExecutionConfig.MODE + "=" + mode,
+                "server.tomcat.threads.max=" + tomcatThreads,
+                "api.cache.products=maximumSize=0"
+        );
+        BenchmarkContext.seed(context, CATALOG_SIZE, 3);
+        final List<Integer> ids = context.getBean(ProductRepository.class)
+                                         .findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+        productIds = ids.stream().mapToInt(Integer::intValue).toArray();
+
+        final int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        final String baseUrl = "http://localhost:" + port + (mode.equals("async") ? "/api/product/async" : "/api/product");
+        productUrl = baseUrl + "/";
+        pageRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/page?size=50")).build();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getProductById() throws IOException, InterruptedException {
+        final int id = productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(productUrl + id)).build();
+        return send(request);
+    }
+
+    @Benchmark
+    public int getProductPage() throws IOException, InterruptedException {
+        return send(pageRequest);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        final HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,114 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Products read as entities in a read-write transaction and rendered from the entities, the way the read endpoints
+ * used to, against {@link ProductView}s read in a read-only transaction. Each operation reads and writes as JSON a page
+ * of products or a single product. Run with {@code -prof gc} for the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductProjectionBenchmark {
+
+    private final static int CATALOG_SIZE = 10000;
+    private final static int PAGE_SIZE = 50;
+
+    @Param({"1", "5"})
+    private int categoriesPerProduct;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private ObjectMapper objectMapper;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+    private List<Integer> productIds;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start("projection-" + categoriesPerProduct);
+        BenchmarkContext.seed(context, CATALOG_SIZE, categoriesPerProduct);
+        productRepository = context.getBean(ProductRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        final PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        productIds = productRepository.findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entityPage() {
+        final List<Integer> ids = randomPage();
+        return readWriteTransaction.execute(status -> write(productRepository.findByIdInOrderByIdAsc(ids)));
+    }
+
+    @Benchmark
+    public byte[] viewPage() {
+        final List<Integer> ids = randomPage();
+        return readOnlyTransaction.execute(status -> write(productRepository.findViewsByIdIn(ids)));
+    }
+
+    @Benchmark
+    public byte[] entityById() {
+        final Integer id = randomProductId();
+        return readWriteTransaction.execute(status -> write(productRepository.findById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public byte[] viewById() {
+        final Integer id = randomProductId();
+        return readOnlyTransaction.execute(status -> write(productRepository.findViewById(id).orElseThrow()));
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Integer> randomPage() {
+        final int from = ThreadLocalRandom.current().nextInt(productIds.size() - PAGE_SIZE);
+        return productIds.subList(from, from + PAGE_SIZE);
+    }
+
+    private Integer randomProductId() {
+        return productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+    }
+}
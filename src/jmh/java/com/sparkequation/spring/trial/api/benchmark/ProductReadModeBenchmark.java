@@ -0,0 +1,108 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The product reads served from the database against the same reads served from the catalog snapshot, with the
+ * product cache off so every read by id is served by the read mode. Run with {@code -prof gc} for the allocation per
+ * read next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductReadModeBenchmark {
+
+    @Param({"100000"})
+    private int catalogSize;
+
+    @Param({"database", "snapshot"})
+    private String readMode;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private int[] productIds;
+    private ProductFilter categoryByRating;
+    private ProductFilter brandById;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start(
+                "read-mode-" + readMode,
+                "api.product.read-mode=" + readMode,
+                "api.cache.products=maximumSize=0"
+        );
+        BenchmarkContext.seed(context, catalogSize, 3);
+        productService = context.getBean(ProductService.class);
+        final List<Integer> ids = context.getBean(ProductRepository.class)
+                                         .findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+        productIds = ids.stream().mapToInt(Integer::intValue).toArray();
+
+        categoryByRating = new ProductFilter();
+        categoryByRating.setCategoryId(List.of(2));
+        categoryByRating.setInStock(true);
+        categoryByRating.setSort("rating");
+        categoryByRating.setDirection("desc");
+        categoryByRating.setSize(50);
+        brandById = new ProductFilter();
+        brandById.setBrandId(3);
+        brandById.setSize(50);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductView getProductById() {
+        return productService.getProductById(productIds[ThreadLocalRandom.current().nextInt(productIds.length)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ProductView getProductByIdConcurrently() {
+        return productService.getProductById(productIds[ThreadLocalRandom.current().nextInt(productIds.length)]);
+    }
+
+    @Benchmark
+    public ProductPage getProductPage() {
+        return productService.getProductPage(null, 50);
+    }
+
+    @Benchmark
+    public ProductPage searchByCategorySortedByRating() {
+        return productService.searchProducts(categoryByRating);
+    }
+
+    @Benchmark
+    public ProductPage searchByBrand() {
+        return productService.searchProducts(brandById);
+    }
+}
@@ -0,0 +1,96 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * The whole request path from dispatch through validation, the service and JSON rendering, without a socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductRequestBenchmark {
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    @Param({"1", "5"})
+    private int categoriesPerProduct;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private int[] productIds;
+    private byte[] productJson;
+    private int seed;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.startWeb(
+                "request-" + catalogSize + "-" + categoriesPerProduct,
+                "api.cache.products=maximumSize=0"
+        );
+        BenchmarkContext.seed(context, catalogSize, categoriesPerProduct);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        final List<Integer> ids = context.getBean(ProductRepository.class)
+                                         .findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+        productIds = ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void createProductJson() throws Exception {
+        productJson = context.getBean(ObjectMapper.class)
+                             .writeValueAsBytes(BenchmarkContext.product(seed++, categoriesPerProduct));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getProductById() throws Exception {
+        final int id = productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        return mockMvc.perform(get("/api/product/{id}", id)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getProductPage() throws Exception {
+        return mockMvc.perform(get("/api/product/page")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult addProduct() throws Exception {
+        return mockMvc.perform(post("/api/product").contentType(MediaType.APPLICATION_JSON).content(productJson))
+                      .andReturn();
+    }
+}
@@ -0,0 +1,117 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.ProductBatchService;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The name search over a catalog whose names are three words of a vocabulary of {@value #VOCABULARY_SIZE} made-up
+ * words, so a word matches a few hundred products of a million. Each operation searches and reads the 20 best
+ * matches. Seeding a million products takes minutes, a smaller catalog does for comparisons, e.g.
+ * {@code -p catalogSize=100000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSearchBenchmark {
+
+    private final static int VOCABULARY_SIZE = 5000;
+    private final static int WORDS_PER_NAME = 3;
+    private final static int SEED_CHUNK = 50000;
+    private final static int RESULTS = 20;
+    private final static String[] SYLLABLES = {
+            "ka", "lo", "mi", "ter", "van", "sol", "ri", "du", "bel", "nor", "pa", "qui", "sen", "to", "wal", "xe",
+            "za", "mor", "gri", "fen"
+    };
+
+    @Param({"1000000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private String[] vocabulary;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start("search-" + catalogSize, "api.cache.products=maximumSize=0");
+        final Random random = new Random(42);
+        vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            final StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+        final ProductBatchService productBatchService = context.getBean(ProductBatchService.class);
+        for (int from = 0; from < catalogSize; from += SEED_CHUNK) {
+            final List<Product> products = BenchmarkContext.products(Math.min(SEED_CHUNK, catalogSize - from), 1);
+            for (Product product : products) {
+                final StringBuilder name = new StringBuilder();
+                for (int i = 0; i < WORDS_PER_NAME; i++) {
+                    name.append(i == 0 ? "" : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+                }
+                product.setName(name.toString());
+            }
+            productBatchService.addProducts(products);
+        }
+        productService = context.getBean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductView> searchWord() {
+        return productService.searchProductsByName(randomWord(), RESULTS);
+    }
+
+    @Benchmark
+    public List<ProductView> searchTwoWords() {
+        return productService.searchProductsByName(randomWord() + " " + randomWord(), RESULTS);
+    }
+
+    @Benchmark
+    public List<ProductView> searchPrefix() {
+        return productService.searchProductsByName(randomWord().substring(0, 3), RESULTS);
+    }
+
+    @Benchmark
+    public List<ProductView> searchTypo() {
+        final char[] word = randomWord().toCharArray();
+        final int swap = 1 + ThreadLocalRandom.current().nextInt(word.length - 2);
+        final char swapped = word[swap];
+        word[swap] = word[swap + 1];
+        word[swap + 1] = swapped;
+        return productService.searchProductsByName(new String(word), RESULTS);
+    }
+
+    private String randomWord() {
+        return vocabulary[ThreadLocalRandom.current().nextInt(vocabulary.length)];
+    }
+}
@@ -0,0 +1,98 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductService} operations against a seeded catalog. The product cache is disabled so that reads measure
+ * the database path rather than a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    @Param({"1", "5"})
+    private int categoriesPerProduct;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private int[] productIds;
+    private Product product;
+    private int seed;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start(
+                "service-" + catalogSize + "-" + categoriesPerProduct,
+                "api.cache.products=maximumSize=0"
+        );
+        BenchmarkContext.seed(context, catalogSize, categoriesPerProduct);
+        productService = context.getBean(ProductService.class);
+        final List<Integer> ids = context.getBean(ProductRepository.class)
+                                         .findIdsAfter(0, PageRequest.of(0, Integer.MAX_VALUE));
+        productIds = ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void createProduct() {
+        product = BenchmarkContext.product(seed++, categoriesPerProduct);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductView getProductById() {
+        return productService.getProductById(randomProductId());
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 5)
+    public List<ProductView> getProducts() {
+        return productService.getProducts();
+    }
+
+    @Benchmark
+    public void addProduct() {
+        productService.addProduct(product);
+    }
+
+    @Benchmark
+    public int updateProductById() {
+        return productService.updateProductById(randomProductId(), product, null);
+    }
+
+    private int randomProductId() {
+        return productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+    }
+}
@@ -0,0 +1,69 @@
+package com.sparkequation.spring.trial.api.benchmark;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.validator.ProductExpirationDateImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of a whole product and of the expiration date constraint on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductValidationBenchmark {
+
+    @Param({"1", "5"})
+    private int categoriesPerProduct;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private ProductExpirationDateImpl expirationDateValidator;
+    private Product product;
+    private Date expirationDate;
+
+    @Setup
+    public void createValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        expirationDateValidator = new ProductExpirationDateImpl();
+        product = BenchmarkContext.product(1, categoriesPerProduct);
+        expirationDate = product.getExpirationDate();
+    }
+
+    @TearDown
+    public void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> validateProduct() {
+        return validator.validate(product);
+    }
+
+    @Benchmark
+    public boolean validateExpirationDate() {
+        return expirationDateValidator.isValid(expirationDate, null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public final static String PRODUCTS = "products";
+    public final static String BRANDS = "brands";
+    public final static String CATEGORIES = "categories";
+    public final static String PRODUCT_JSON = "productJson";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${api.cache.products}") String productsSpec,
+            @Value("${api.cache.brands}") String brandsSpec,
+            @Value("${api.cache.categories}") String categoriesSpec,
+            @Value("${api.cache.product-json}") String productJsonSpec
+    ) {
+        final SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                caffeineCache(PRODUCTS, productsSpec),
+                caffeineCache(BRANDS, brandsSpec),
+                caffeineCache(CATEGORIES, categoriesSpec),
+                caffeineCache(PRODUCT_JSON, productJsonSpec)
+        ));
+        cacheManager.afterPropertiesSet();
+        // Evictions issued inside a transaction are applied after commit, so a concurrent read can't re-cache
+        // the state that is being replaced.
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private static CaffeineCache caffeineCache(String name, String spec) {
+        return new CaffeineCache(name, Caffeine.from(spec).build());
+    }
+}
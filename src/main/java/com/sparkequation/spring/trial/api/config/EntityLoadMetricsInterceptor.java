@@ -0,0 +1,37 @@
+package com.sparkequation.spring.trial.api.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Session scoped interceptor that records how many entities each transaction loaded. The service opens one
+ * transaction per request, so this is the per request figure the global Hibernate statistics can't give under
+ * concurrency.
+ * <p>
+ * Hibernate instantiates it for every session, hence the global registry, which Spring Boot adds its registries to.
+ */
+public class EntityLoadMetricsInterceptor extends EmptyInterceptor {
+
+    private final static DistributionSummary ENTITY_LOADS = DistributionSummary.builder(MetricsConfig.ENTITY_LOADS)
+                                                                               .baseUnit("entities")
+                                                                               .register(Metrics.globalRegistry);
+
+    private int loads;
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        loads++;
+        return false;
+    }
+
+    @Override
+    public void afterTransactionCompletion(Transaction tx) {
+        ENTITY_LOADS.record(loads);
+        loads = 0;
+    }
+}
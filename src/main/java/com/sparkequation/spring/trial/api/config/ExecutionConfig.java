@@ -0,0 +1,46 @@
+package com.sparkequation.spring.trial.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Selects how product requests are executed with {@code api.execution.mode}:
+ * <ul>
+ *     <li>{@code platform}: on Tomcat's pool of platform threads, the default;</li>
+ *     <li>{@code virtual}: every request on its own virtual thread, which needs Java 21 or later;</li>
+ *     <li>{@code async}: additionally serves the read endpoints under {@code api/product/async} as asynchronous
+ *     requests, which hand the blocking work to {@link #PRODUCT_QUERY_EXECUTOR} and free the Tomcat thread.</li>
+ * </ul>
+ * In every mode {@link QueryBulkheadAspect} bounds how many service calls wait for a connection at once.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    public final static String MODE = "api.execution.mode";
+
+    @Bean
+    @ConditionalOnProperty(name = MODE, havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        final ExecutorService executor = VirtualThreads.newExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * Virtual threads when the runtime has them, otherwise a fixed pool of platform threads.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = MODE, havingValue = "async")
+    public QueryExecutor productQueryExecutor(@Value("${api.execution.async.threads:64}") int threads) {
+        if (VirtualThreads.isSupported()) {
+            return new QueryExecutor(VirtualThreads.newExecutor());
+        }
+        return new QueryExecutor(Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("product-query-")));
+    }
+}
@@ -0,0 +1,61 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings next to JSON, picked by the Accept and Content-Type headers: Smile
+ * ({@code application/x-jackson-smile}) and CBOR ({@code application/cbor}). Both mappers are built from the builder
+ * Spring Boot configures, so they write the same fields and dates as the JSON one.
+ * <p>
+ * The JSON of the product reads is written from the rendered JSON of each product, see
+ * {@link ProductJsonHttpMessageConverter}.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Generates bytecode accessors for the getters and setters instead of calling them reflectively. Registered with
+     * every object mapper Spring Boot builds.
+     */
+    @Bean
+    public Module afterburnerModule() {
+        return new AfterburnerModule();
+    }
+
+    /**
+     * Registered ahead of the Jackson JSON converter, which writes the rest. Renders every product on every write
+     * where caching isn't set up, as in the controller slice tests.
+     */
+    @Bean
+    public ProductJsonHttpMessageConverter productJsonHttpMessageConverter(
+            ObjectMapper objectMapper,
+            ObjectProvider<CacheManager> cacheManager
+    ) {
+        return new ProductJsonHttpMessageConverter(
+                objectMapper,
+                cacheManager.getIfAvailable(NoOpCacheManager::new).getCache(CacheConfig.PRODUCT_JSON)
+        );
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,24 @@
+package com.sparkequation.spring.trial.api.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    public final static String SERVICE_TIMER = "api.service";
+    public final static String REPOSITORY_TIMER = "api.repository";
+    public final static String ENTITY_LOADS = "api.hibernate.entity.loads";
+    public final static String VALIDATION_FAILURES = "api.validation.failures";
+    public final static String NOT_FOUND = "api.not.found";
+
+    /**
+     * Times the methods annotated with {@link io.micrometer.core.annotation.Timed}, tagged by class and method.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
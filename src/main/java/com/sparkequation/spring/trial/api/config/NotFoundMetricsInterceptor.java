@@ -0,0 +1,35 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the requests for a product that doesn't exist. The 404 itself comes from the {@code @ResponseStatus} of
+ * {@link NoSuchProductException}, which leaves the exception in the request for the interceptors to see.
+ */
+public class NotFoundMetricsInterceptor implements HandlerInterceptor {
+
+    private final Counter productsNotFound;
+
+    public NotFoundMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.productsNotFound = meterRegistry.counter(MetricsConfig.NOT_FOUND, "resource", "product");
+    }
+
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            Exception ex
+    ) {
+        if (request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE) instanceof NoSuchProductException) {
+            productsNotFound.increment();
+        }
+    }
+}
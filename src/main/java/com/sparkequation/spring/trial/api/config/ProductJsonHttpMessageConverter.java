@@ -0,0 +1,145 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.ProductChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the JSON of the product reads from the rendered JSON of each product, kept in the
+ * {@value CacheConfig#PRODUCT_JSON} cache with the version it was rendered from. A product is rendered by the object
+ * mapper the first time it is written and again only once its version changed, lists and pages are written by
+ * copying the rendered products into the response between the brackets, so the output is the same bytes the object
+ * mapper writes.
+ * <p>
+ * Takes {@link ProductView}, lists of them and {@link ProductPage} as {@code application/json} only, everything
+ * else, the binary encodings and the reads of request bodies are left to the Jackson converters. The write paths
+ * evict a product after commit, the version check covers a view read before a change and written after it.
+ */
+public class ProductJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final static byte[] PAGE_PRODUCTS = "{\"products\":".getBytes(StandardCharsets.UTF_8);
+    private final static byte[] PAGE_TOKEN = ",\"nextToken\":".getBytes(StandardCharsets.UTF_8);
+    private final static byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final Cache fragments;
+
+    public ProductJsonHttpMessageConverter(ObjectMapper objectMapper, Cache fragments) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.fragments = fragments;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProductView.class == clazz || ProductPage.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return (supports(clazz) || isProductList(type, clazz)) && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Product JSON is written only.", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Product JSON is written only.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        final OutputStream body = outputMessage.getBody();
+        if (object instanceof ProductView) {
+            body.write(render((ProductView) object));
+        } else if (object instanceof ProductPage) {
+            final ProductPage page = (ProductPage) object;
+            body.write(PAGE_PRODUCTS);
+            writeProducts(page.getProducts(), body);
+            body.write(PAGE_TOKEN);
+            body.write(objectMapper.writeValueAsBytes(page.getNextToken()));
+            body.write('}');
+        } else {
+            @SuppressWarnings("unchecked") final List<ProductView> products = (List<ProductView>) object;
+            writeProducts(products, body);
+        }
+    }
+
+    /**
+     * The JSON of a product as the object mapper writes it, rendered again only if the cached one is of another
+     * version.
+     */
+    byte[] render(ProductView product) throws IOException {
+        final Fragment cached = fragments.get(product.getId(), Fragment.class);
+        if (cached != null && cached.version == product.getVersion()) {
+            return cached.json;
+        }
+        final byte[] json = objectMapper.writeValueAsBytes(product);
+        fragments.put(product.getId(), new Fragment(product.getVersion(), json));
+        return json;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        fragments.evict(event.getProductId());
+    }
+
+    private void writeProducts(List<ProductView> products, OutputStream body) throws IOException {
+        if (products == null) {
+            body.write(NULL);
+            return;
+        }
+        body.write('[');
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) {
+                body.write(',');
+            }
+            body.write(render(products.get(i)));
+        }
+        body.write(']');
+    }
+
+    private static boolean isProductList(Type type, Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz)
+               && type instanceof ParameterizedType
+               && ((ParameterizedType) type).getActualTypeArguments()[0] == ProductView.class;
+    }
+
+    private static class Fragment {
+        private final int version;
+        private final byte[] json;
+
+        private Fragment(int version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
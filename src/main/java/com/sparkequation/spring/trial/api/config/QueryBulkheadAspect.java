@@ -0,0 +1,65 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.sparkequation.spring.trial.api.service.exception.ServiceBusyException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets at most {@code api.execution.max-concurrent-queries} product service calls run at once, so that a burst of
+ * slow queries queues here, fairly and with a short timeout, instead of inside the connection pool with every request
+ * thread blocked. It runs outside the transaction, before a connection is taken.
+ * <p>
+ * The reads the catalog snapshot serves take no connection and aren't limited; the calls it hands on to the database
+ * implementation are limited there, once. Neither are the calls answered from memory, nor the streaming of every
+ * product, which would hold a permit for as long as the client takes to read it.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class QueryBulkheadAspect {
+
+    private final static String BUSY = "No database capacity within %s ms.";
+
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    public QueryBulkheadAspect(
+            @Value("${api.execution.max-concurrent-queries:10}") int maxConcurrentQueries,
+            @Value("${api.execution.query-permit-timeout:2000}") long timeoutMillis
+    ) {
+        this.permits = new Semaphore(maxConcurrentQueries, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Pointcut("execution(public * com.sparkequation.spring.trial.api.service.ProductService.*(..)) "
+              + "&& !within(com.sparkequation.spring.trial.api.service.SnapshotProductService)")
+    void productService() {
+    }
+
+    @Pointcut("execution(* com.sparkequation.spring.trial.api.service.ProductService.forEachProduct(..)) "
+              + "|| execution(* com.sparkequation.spring.trial.api.service.ProductService.getCatalogStamp(..)) "
+              + "|| execution(* com.sparkequation.spring.trial.api.service.ProductService.getFeaturedProducts(..))")
+    void unlimited() {
+    }
+
+    @Around("productService() && !unlimited()")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new ServiceBusyException(String.format(BUSY, timeoutMillis));
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.sparkequation.spring.trial.api.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking queries off the request thread. It deliberately isn't an {@link java.util.concurrent.Executor} bean,
+ * which would make Spring Boot back off from the application task executor that the batch upload relies on.
+ */
+public final class QueryExecutor {
+
+    private final ExecutorService executor;
+
+    QueryExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
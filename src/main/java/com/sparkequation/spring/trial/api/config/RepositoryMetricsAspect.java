@@ -0,0 +1,100 @@
+package com.sparkequation.spring.trial.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every call on a Spring Data repository, tagged by repository interface and method, so that the database
+ * share of a service call shows up next to it. Each timer is built and registered once per repository, method and
+ * outcome, later calls find it in a map of their own.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final static ClassValue<String> REPOSITORY_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> proxyClass) {
+            for (Class<?> repositoryInterface : proxyClass.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(repositoryInterface)) {
+                    return repositoryInterface.getSimpleName();
+                }
+            }
+            return proxyClass.getSimpleName();
+        }
+    };
+
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        Class<?> exception = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass();
+            throw e;
+        } finally {
+            final Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            sample.stop(timers.computeIfAbsent(
+                    new TimerKey(joinPoint.getThis().getClass(), method, exception),
+                    this::register
+            ));
+        }
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(MetricsConfig.REPOSITORY_TIMER)
+                    .tag("repository", REPOSITORY_NAMES.get(key.repository))
+                    .tag("method", key.method.getName())
+                    .tag("exception", key.exception == null ? "none" : key.exception.getSimpleName())
+                    .register(meterRegistry);
+    }
+
+    /**
+     * Keyed by proxy class too: the methods inherited from the Spring Data interfaces are the same {@link Method} in
+     * every repository.
+     */
+    private static class TimerKey {
+        private final Class<?> repository;
+        private final Method method;
+        private final Class<?> exception;
+
+        TimerKey(Class<?> repository, Method method, Class<?> exception) {
+            this.repository = repository;
+            this.method = method;
+            this.exception = exception;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TimerKey that = (TimerKey) o;
+            return repository == that.repository &&
+                   method.equals(that.method) &&
+                   exception == that.exception;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repository, method, exception);
+        }
+    }
+}
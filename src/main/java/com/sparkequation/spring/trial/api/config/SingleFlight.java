@@ -0,0 +1,75 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.sparkequation.spring.trial.api.service.exception.ServiceBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs one load per key at a time: a call for a key that is already being loaded waits for that load and gets its
+ * result, or its exception. The loads in flight are registered without a lock, the first call to register its future
+ * for a key runs the load and the others wait on that future, at most {@code timeoutMillis}.
+ */
+public class SingleFlight {
+
+    private final static String TIMED_OUT = "No result of the shared load within %s ms.";
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+
+    @FunctionalInterface
+    public interface Load {
+        Object run() throws Throwable;
+    }
+
+    public SingleFlight(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public Object execute(Object key, Load load) throws Throwable {
+        final CompletableFuture<Object> own = new CompletableFuture<>();
+        final CompletableFuture<Object> shared = inFlight.putIfAbsent(key, own);
+        if (shared != null) {
+            return await(shared);
+        }
+        try {
+            final Object result = load.run();
+            own.complete(result);
+            return result;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Makes the calls from now on start loads of their own, the ones already waiting still get the result of the
+     * load they joined. For after a change that the loads in flight may have missed.
+     */
+    public void forget() {
+        inFlight.clear();
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private Object await(CompletableFuture<Object> shared) throws Throwable {
+        try {
+            return shared.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new ServiceBusyException(String.format(TIMED_OUT, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(String.format(TIMED_OUT, timeoutMillis));
+        }
+    }
+}
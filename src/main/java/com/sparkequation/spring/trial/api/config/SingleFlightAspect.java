@@ -0,0 +1,74 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.sparkequation.spring.trial.api.service.ProductChangedEvent;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+
+/**
+ * Concurrent identical product reads share one call of the product service: the first one runs, the others wait for
+ * its result or its exception, so a burst of requests for the same product, page or filter runs one query. Reads are
+ * identical if they call the same method with equal arguments; the results are immutable views, shared as they are.
+ * <p>
+ * Runs outside the {@link QueryBulkheadAspect}, so only the call that runs takes a permit. A committed change makes
+ * the reads after it start a read of their own, a read in flight may have been started before the change. The reads
+ * of the catalog snapshot take no connection and aren't coalesced, like they aren't limited.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "api.execution.single-flight", havingValue = "true", matchIfMissing = true)
+public class SingleFlightAspect {
+
+    private final SingleFlight singleFlight;
+
+    public SingleFlightAspect(@Value("${api.execution.single-flight-timeout:5000}") long timeoutMillis) {
+        this.singleFlight = new SingleFlight(timeoutMillis);
+    }
+
+    @Around("(execution(public * com.sparkequation.spring.trial.api.service.ProductService.get*(..)) "
+            + "|| execution(public * com.sparkequation.spring.trial.api.service.ProductService.search*(..))) "
+            + "&& !execution(* getCatalogStamp()) "
+            + "&& !within(com.sparkequation.spring.trial.api.service.SnapshotProductService)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        final Key key = new Key(joinPoint.getSignature().getName(), joinPoint.getArgs());
+        return singleFlight.execute(key, joinPoint::proceed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        singleFlight.forget();
+    }
+
+    private static class Key {
+        private final String method;
+        private final Object[] arguments;
+
+        Key(String method, Object[] arguments) {
+            this.method = method;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return method.equals(that.method) &&
+                   Arrays.equals(arguments, that.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + Arrays.hashCode(arguments);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.sparkequation.spring.trial.api.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual threads without compiling against a release that has them: the build targets Java 14, the executor is looked
+ * up when the application runs on Java 21 or later.
+ */
+final class VirtualThreads {
+
+    private final static Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findNewVirtualThreadPerTaskExecutor();
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            return false;
+        }
+        try {
+            newExecutor().shutdown();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    static ExecutorService newExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later, running on " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            // Java 19 and 20 have the method but throw without --enable-preview.
+            throw new IllegalStateException("Virtual threads are not enabled on " + Runtime.version(), e);
+        }
+    }
+
+    private static Method findNewVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sparkequation.spring.trial.api.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sparkequation.spring.trial.api.model.CacheStatistics;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("api/cache")
+public class CacheController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @GetMapping(path = "/statistics")
+    public ResponseEntity<List<CacheStatistics>> getStatistics() {
+        return ResponseEntity.ok(cacheManager.getCacheNames()
+                                             .stream()
+                                             .map(cacheManager::getCache)
+                                             .filter(Objects::nonNull)
+                                             .filter(cache -> cache.getNativeCache() instanceof Cache)
+                                             .map(CacheController::toStatistics)
+                                             .collect(Collectors.toList()));
+    }
+
+    /**
+     * Drops every cached product, brand and category, including Hibernate's second-level and query caches. Meant for
+     * after changes made directly in the database, e.g. from the H2 console, which no cache knows about.
+     */
+    @DeleteMapping
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public void evictAll() {
+        cacheManager.getCacheNames()
+                    .stream()
+                    .map(cacheManager::getCache)
+                    .filter(Objects::nonNull)
+                    .forEach(org.springframework.cache.Cache::clear);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    private static CacheStatistics toStatistics(org.springframework.cache.Cache cache) {
+        final Cache<?, ?> nativeCache = (Cache<?, ?>) cache.getNativeCache();
+        final CacheStats stats = nativeCache.stats();
+        return new CacheStatistics(
+                cache.getName(),
+                nativeCache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount(),
+                stats.hitRate()
+        );
+    }
+}
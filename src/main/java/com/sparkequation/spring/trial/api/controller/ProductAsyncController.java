@@ -0,0 +1,78 @@
+package com.sparkequation.spring.trial.api.controller;
+
+import com.sparkequation.spring.trial.api.config.ExecutionConfig;
+import com.sparkequation.spring.trial.api.config.QueryExecutor;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Read endpoints of {@link ProductController} as asynchronous requests: the Tomcat thread is released while the query
+ * runs on the {@link QueryExecutor}. Revalidations of the catalog are answered on the Tomcat thread, from the catalog
+ * stamp; those of a product on the executor, which only reads the request headers taken on the Tomcat thread.
+ */
+@RestController
+@RequestMapping("api/product/async")
+@Validated
+@ConditionalOnProperty(name = ExecutionConfig.MODE, havingValue = "async")
+public class ProductAsyncController {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private QueryExecutor queryExecutor;
+
+    @Autowired
+    private ProductResponses productResponses;
+
+    @GetMapping(path = "/page")
+    public CompletableFuture<ResponseEntity<ProductPage>> getProductPage(
+            @RequestParam(required = false) String token,
+            @RequestParam(required = false) @Positive(message = "Page size must be positive.") Integer size,
+            WebRequest request
+    ) {
+        return catalog(request, () -> productService.getProductPage(token, size));
+    }
+
+    @GetMapping(path = "/filter")
+    public CompletableFuture<ResponseEntity<ProductPage>> searchProducts(
+            @Valid ProductFilter filter,
+            WebRequest request
+    ) {
+        return catalog(request, () -> productService.searchProducts(filter));
+    }
+
+    @GetMapping(path = "/{id}")
+    public CompletableFuture<ResponseEntity<ProductView>> getProductById(
+            @PathVariable @Positive(message = "Id must be positive.") Integer id,
+            WebRequest request
+    ) {
+        final List<String> ifNoneMatch = ProductResponses.ifNoneMatch(request);
+        return queryExecutor.supply(() -> productResponses.product(ifNoneMatch, id));
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> catalog(WebRequest request, Supplier<T> body) {
+        if (productResponses.isCatalogNotModified(request)) {
+            return CompletableFuture.completedFuture(productResponses.notModified());
+        }
+        return queryExecutor.supply(body).thenApply(productResponses::ok);
+    }
+}
@@ -0,0 +1,90 @@
+package com.sparkequation.spring.trial.api.controller;
+
+import com.sparkequation.spring.trial.api.model.ProductChangeBatch;
+import com.sparkequation.spring.trial.api.model.ProductChangeOffset;
+import com.sparkequation.spring.trial.api.service.ProductChangeFeed;
+import com.sparkequation.spring.trial.api.service.ProductChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * The ordered feed of product changes, for incremental sync: read the changes after the last sequence seen, or
+ * subscribe to them as server-sent events. Consumers may store their offset here under a name of their own.
+ */
+@RestController
+@RequestMapping("api/product/changes")
+@Validated
+public class ProductChangeController {
+
+    private final static String CONSUMER_PATTERN = "[A-Za-z0-9._-]{1,64}";
+    private final static String WRONG_CONSUMER = "Consumer must be 1 to 64 letters, digits, '.', '_' or '-'.";
+    private final static String LAST_EVENT_ID = "Last-Event-ID";
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    /**
+     * Without {@code after} the changes follow the stored offset of the consumer, or start from the first one.
+     */
+    @GetMapping
+    public ResponseEntity<ProductChangeBatch> getChanges(
+            @RequestParam(required = false) @PositiveOrZero(message = "After must not be negative.") Long after,
+            @RequestParam(required = false) @Pattern(regexp = CONSUMER_PATTERN, message = WRONG_CONSUMER)
+                    String consumer,
+            @RequestParam(required = false) @Positive(message = "Batch size must be positive.") Integer size
+    ) {
+        if (after == null) {
+            after = consumer == null ? 0 : productChangeService.getOffset(consumer).getSequence();
+        }
+        return ResponseEntity.ok(productChangeService.getChanges(after, size));
+    }
+
+    /**
+     * Without Last-Event-ID or {@code after} only the changes from now on are sent.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) @PositiveOrZero(message = "After must not be negative.") Long after,
+            @RequestHeader(name = LAST_EVENT_ID, required = false) Long lastEventId
+    ) {
+        if (lastEventId != null) {
+            return productChangeFeed.subscribe(lastEventId);
+        }
+        return productChangeFeed.subscribe(after == null ? productChangeService.getLastSequence() : after);
+    }
+
+    @GetMapping(path = "/offsets/{consumer}")
+    public ResponseEntity<ProductChangeOffset> getOffset(
+            @PathVariable @Pattern(regexp = CONSUMER_PATTERN, message = WRONG_CONSUMER) String consumer
+    ) {
+        return ResponseEntity.ok(productChangeService.getOffset(consumer));
+    }
+
+    @PutMapping(path = "/offsets/{consumer}")
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public void commitOffset(
+            @PathVariable @Pattern(regexp = CONSUMER_PATTERN, message = WRONG_CONSUMER) String consumer,
+            @RequestParam @PositiveOrZero(message = "Sequence must not be negative.") long sequence
+    ) {
+        productChangeService.commitOffset(consumer, sequence);
+    }
+}
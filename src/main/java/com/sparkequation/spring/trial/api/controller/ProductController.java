@@ -1,41 +1,144 @@
 package com.sparkequation.spring.trial.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBatchResult;
+import com.sparkequation.spring.trial.api.model.ProductBulkDeleteProgress;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.ProductBatchService;
 import com.sparkequation.spring.trial.api.service.ProductService;
+import com.sparkequation.spring.trial.api.service.exception.ProductVersionMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("api/product")
 @Validated
 public class ProductController {
 
+    public final static String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public final static String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    private final static String WRONG_ETAG = "If-Match %s is not an ETag of a product.";
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductResponses productResponses;
+
     @GetMapping(path = "/all")
-    public ResponseEntity<List<Product>> getProducts() {
-        return ResponseEntity.ok(productService.getProducts());
+    public ResponseEntity<List<ProductView>> getProducts(WebRequest request) {
+        return productResponses.catalog(request, productService::getProducts);
+    }
+
+    @GetMapping(path = "/page")
+    public ResponseEntity<ProductPage> getProductPage(
+            @RequestParam(required = false) String token,
+            @RequestParam(required = false) @Positive(message = "Page size must be positive.") Integer size,
+            WebRequest request
+    ) {
+        return productResponses.catalog(request, () -> productService.getProductPage(token, size));
+    }
+
+    @GetMapping(path = "/filter")
+    public ResponseEntity<ProductPage> searchProducts(@Valid ProductFilter filter, WebRequest request) {
+        return productResponses.catalog(request, () -> productService.searchProducts(filter));
+    }
+
+    @GetMapping(path = "/search")
+    public ResponseEntity<List<ProductView>> searchProductsByName(
+            @RequestParam @NotBlank(message = "Query must not be blank.")
+            @Size(max = 255, message = "Query must be at most 255 characters.") String q,
+            @RequestParam(required = false) @Positive(message = "Size must be positive.") Integer size,
+            WebRequest request
+    ) {
+        return productResponses.catalog(request, () -> productService.searchProductsByName(q, size));
+    }
+
+    @GetMapping(path = "/featured")
+    public ResponseEntity<ProductPage> getFeaturedProducts(
+            @RequestParam(required = false) String token,
+            @RequestParam(required = false) @Positive(message = "Page size must be positive.") Integer size,
+            WebRequest request
+    ) {
+        return productResponses.catalog(request, () -> productService.getFeaturedProducts(token, size));
+    }
+
+    @GetMapping(path = "/expiring")
+    public ResponseEntity<ProductPage> getExpiringProducts(
+            @RequestParam @PositiveOrZero(message = "Days must not be negative.") int days,
+            @RequestParam(required = false) String token,
+            @RequestParam(required = false) @Positive(message = "Page size must be positive.") Integer size
+    ) {
+        return ResponseEntity.ok(productService.getExpiringProducts(days, token, size));
+    }
+
+    @GetMapping(path = "/stream")
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                productService.forEachProduct(product -> {
+                    try {
+                        generator.writeObject(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping(path = "/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable @Positive(message = "Id must be positive.") Integer id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductView> getProductById(
+            @PathVariable @Positive(message = "Id must be positive.") Integer id,
+            WebRequest request
+    ) {
+        return productResponses.product(ProductResponses.ifNoneMatch(request), id);
     }
 
     @PostMapping
@@ -44,13 +147,74 @@ public class ProductController {
         productService.addProduct(product);
     }
 
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ProductBatchResult> addProducts(InputStream products) throws IOException {
+        return ResponseEntity.ok(productBatchService.addProducts(products));
+    }
+
+    /**
+     * Streams the progress of the delete as NDJSON, a line per committed chunk and a last one with {@code done} set.
+     * A client that goes away stops the delete after the chunk in progress.
+     */
+    @PostMapping(path = "/batch/delete", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> deleteProducts(
+            @RequestBody @Valid ProductSelection selection,
+            @RequestParam(defaultValue = "true") boolean archive
+    ) {
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                productBatchService.deleteProducts(selection, archive, progress -> writeLine(generator, progress));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.valueOf(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
     @PutMapping(path = "/{id}")
-    @ResponseStatus(value = HttpStatus.NO_CONTENT)
-    public void updateProductById(
+    public ResponseEntity<Void> updateProductById(
             @PathVariable @Positive(message = "Id must be positive.") Integer id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid Product product
     ) {
-        productService.updateProductById(id, product);
+        final int version = productService.updateProductById(id, product, expectedVersions(ifMatch));
+        return ResponseEntity.noContent().eTag(ProductResponses.versionETag(version)).build();
+    }
+
+    @PatchMapping(path = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_MERGE_PATCH_JSON_VALUE})
+    public ResponseEntity<Void> patchProductById(
+            @PathVariable @Positive(message = "Id must be positive.") Integer id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody @Valid ProductPatch patch
+    ) {
+        final int version = productService.patchProductById(id, patch, expectedVersions(ifMatch));
+        return ResponseEntity.noContent().eTag(ProductResponses.versionETag(version)).build();
+    }
+
+    @PostMapping(path = "/{id}/stock/reserve")
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public void reserveItems(
+            @PathVariable @Positive(message = "Id must be positive.") Integer id,
+            @RequestParam @Positive(message = "Count must be positive.") int count
+    ) {
+        productService.reserveItems(id, count);
+    }
+
+    @PostMapping(path = "/{id}/stock/release")
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public void releaseItems(
+            @PathVariable @Positive(message = "Id must be positive.") Integer id,
+            @RequestParam @Positive(message = "Count must be positive.") int count
+    ) {
+        productService.releaseItems(id, count);
+    }
+
+    @PostMapping(path = "/{id}/stock/adjust")
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public void adjustItemsInStock(
+            @PathVariable @Positive(message = "Id must be positive.") Integer id,
+            @RequestParam int delta
+    ) {
+        productService.adjustItemsInStock(id, delta);
     }
 
     @DeleteMapping(path = "/{id}")
@@ -58,4 +222,40 @@ public class ProductController {
     public void deleteProductById(@PathVariable @Positive(message = "Id must be positive.") Integer id) {
         productService.deleteProductById(id);
     }
+
+    private static void writeLine(JsonGenerator generator, ProductBulkDeleteProgress progress) {
+        try {
+            generator.writeObject(progress);
+            generator.writeRaw('\n');
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Product ETags are the quoted version; the header lists one or more of them, any of which may match. If-Match
+     * compares strongly (RFC 7232, section 3.1), so a weak tag matches no version. {@code *} or no If-Match at all
+     * means any version.
+     */
+    private static Set<Integer> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        final Set<Integer> versions = new HashSet<>();
+        for (String eTag : ifMatch.split(",")) {
+            if (!eTag.trim().startsWith("W/")) {
+                versions.add(version(eTag.trim()));
+            }
+        }
+        return versions;
+    }
+
+    private static Integer version(String eTag) {
+        try {
+            return Integer.valueOf(eTag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ProductVersionMismatchException(String.format(WRONG_ETAG, eTag));
+        }
+    }
 }
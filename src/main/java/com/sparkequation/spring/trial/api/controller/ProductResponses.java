@@ -0,0 +1,141 @@
+package com.sparkequation.spring.trial.api.controller;
+
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The validators and caching headers of the product reads, the same whichever controller answers them.
+ * <p>
+ * The catalog ETags are weak: the same catalog state is served as JSON, Smile or CBOR, compressed or not, and the
+ * tag only says the content is the same, not the bytes. A product is tagged with its version, strong, as If-Match
+ * compares tags strongly; a response with a strong ETag is never compressed, so one format of a version is always
+ * the same bytes. The responses vary by {@code Accept} so a shared cache keeps one copy per format.
+ */
+@Component
+class ProductResponses {
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${api.product.cache-control.max-age:0}")
+    private long cacheMaxAge;
+
+    private CacheControl cacheControl;
+
+    /**
+     * Without a max age caches may store the responses but have to revalidate them on every use.
+     */
+    @PostConstruct
+    public void init() {
+        cacheControl = cacheMaxAge > 0
+                       ? CacheControl.maxAge(cacheMaxAge, TimeUnit.SECONDS).cachePublic()
+                       : CacheControl.noCache().cachePublic();
+    }
+
+    /**
+     * Answers a conditional request from the catalog stamp alone. The stamp is read before the body: a change
+     * committed in between makes the next stamp differ, so a cached body is never older than its ETag.
+     * {@link WebRequest#checkNotModified(String, long)} also sets the ETag and Last-Modified headers.
+     */
+    <T> ResponseEntity<T> catalog(WebRequest request, Supplier<T> body) {
+        return isCatalogNotModified(request) ? notModified() : ok(body.get());
+    }
+
+    /**
+     * The first half of {@link #catalog}, for the callers that get the body elsewhere.
+     */
+    boolean isCatalogNotModified(WebRequest request) {
+        final CatalogStamp stamp = productService.getCatalogStamp();
+        return request.checkNotModified(eTag(stamp.getETag()), stamp.getLastModified());
+    }
+
+    <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok().cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                             .cacheControl(cacheControl)
+                             .varyBy(HttpHeaders.ACCEPT)
+                             .build();
+    }
+
+    /**
+     * The If-None-Match tags of a request, read on the request thread for {@link #product}.
+     */
+    static List<String> ifNoneMatch(WebRequest request) {
+        final String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return List.of();
+        }
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put(HttpHeaders.IF_NONE_MATCH, Arrays.asList(values));
+        return headers.getIfNoneMatch();
+    }
+
+    /**
+     * A product tagged with its version. A revalidation only needs the version, the product is loaded when it has
+     * changed. Compares the tags itself rather than through {@link WebRequest#checkNotModified(String)}, which writes
+     * to the servlet response: this runs on the {@link com.sparkequation.spring.trial.api.config.QueryExecutor} for
+     * the asynchronous reads, where the response is not safe to touch.
+     */
+    ResponseEntity<ProductView> product(List<String> ifNoneMatch, Integer id) {
+        if (!ifNoneMatch.isEmpty()) {
+            final Integer version = productService.getProductVersion(id);
+            if (version != null && matches(ifNoneMatch, versionETag(version))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                     .cacheControl(cacheControl)
+                                     .varyBy(HttpHeaders.ACCEPT)
+                                     .eTag(versionETag(version))
+                                     .build();
+            }
+        }
+        final ProductView product = productService.getProductById(id);
+        return ResponseEntity.ok()
+                             .cacheControl(cacheControl)
+                             .varyBy(HttpHeaders.ACCEPT)
+                             .eTag(versionETag(product.getVersion()))
+                             .body(product);
+    }
+
+    /**
+     * The weak comparison of If-None-Match: whether any of the tags has the opaque tag of {@code eTag}.
+     */
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        final String opaqueTag = opaqueTag(eTag);
+        return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || opaqueTag(tag).equals(opaqueTag));
+    }
+
+    private static String opaqueTag(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * The weak ETag of a catalog stamp.
+     */
+    static String eTag(Object tag) {
+        return "W/\"" + tag + '"';
+    }
+
+    /**
+     * The strong ETag of a product version, the one If-Match takes.
+     */
+    static String versionETag(int version) {
+        return "\"" + version + '"';
+    }
+}
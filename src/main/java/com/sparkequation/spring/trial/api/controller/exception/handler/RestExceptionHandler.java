@@ -1,13 +1,14 @@
 package com.sparkequation.spring.trial.api.controller.exception.handler;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.config.MetricsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -25,12 +26,13 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private MeterRegistry meterRegistry;
 
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatus status, WebRequest request
     ) {
+        meterRegistry.counter(MetricsConfig.VALIDATION_FAILURES, "source", "body").increment();
         final ResponseErrorInfo responseErrorInfo = new ResponseErrorInfo(
                 BAD_REQUEST,
                 "Method Argument Not Valid",
@@ -40,13 +42,23 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
                   .map(DefaultMessageSourceResolvable::getDefaultMessage)
                   .collect(Collectors.toList())
         );
-        String body = null;
-        try {
-            body = objectMapper.writeValueAsString(responseErrorInfo);
-        } catch (JsonProcessingException e) {
-            logger.error("Couldn't write ResponseErrorInfo", e);
-        }
-        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).headers(headers).body(body);
+        return ResponseEntity.badRequest().headers(headers).body(responseErrorInfo);
+    }
+
+    @Override
+    protected ResponseEntity<Object> handleBindException(
+            BindException ex, HttpHeaders headers, HttpStatus status, WebRequest request
+    ) {
+        meterRegistry.counter(MetricsConfig.VALIDATION_FAILURES, "source", "parameters").increment();
+        final ResponseErrorInfo responseErrorInfo = new ResponseErrorInfo(
+                BAD_REQUEST,
+                "Request Parameters Not Valid",
+                ex.getAllErrors()
+                  .stream()
+                  .map(DefaultMessageSourceResolvable::getDefaultMessage)
+                  .collect(Collectors.toList())
+        );
+        return ResponseEntity.badRequest().headers(headers).body(responseErrorInfo);
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
@@ -55,6 +67,16 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
             ConstraintViolationException ex,
             ServletWebRequest webRequest
     ) throws IOException {
+        meterRegistry.counter(MetricsConfig.VALIDATION_FAILURES, "source", "constraint").increment();
         webRequest.getResponse().sendError(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
     }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @SuppressWarnings("ConstantConditions")
+    public void handleOptimisticLockingFailure(
+            OptimisticLockingFailureException ex,
+            ServletWebRequest webRequest
+    ) throws IOException {
+        webRequest.getResponse().sendError(HttpStatus.CONFLICT.value(), "Product was modified concurrently");
+    }
 }
@@ -0,0 +1,49 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.Objects;
+
+/**
+ * The brand of a {@link ProductView}, written the same way as a {@link Brand}.
+ */
+public class BrandView {
+    private final int id;
+    private final String name;
+    private final String country;
+
+    public BrandView(int id, String name, String country) {
+        this.id = id;
+        this.name = name;
+        this.country = country;
+    }
+
+    public static BrandView of(Brand brand) {
+        return brand == null ? null : new BrandView(brand.getId(), brand.getName(), brand.getCountry());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BrandView brandView = (BrandView) o;
+        return id == brandView.id &&
+               Objects.equals(name, brandView.name) &&
+               Objects.equals(country, brandView.country);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, country);
+    }
+}
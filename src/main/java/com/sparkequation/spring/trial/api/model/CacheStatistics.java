@@ -0,0 +1,63 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.Objects;
+
+public class CacheStatistics {
+    private final String name;
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final double hitRate;
+
+    public CacheStatistics(String name, long size, long hitCount, long missCount, long evictionCount, double hitRate) {
+        this.name = name;
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.hitRate = hitRate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheStatistics that = (CacheStatistics) o;
+        return size == that.size &&
+               hitCount == that.hitCount &&
+               missCount == that.missCount &&
+               evictionCount == that.evictionCount &&
+               Double.compare(that.hitRate, hitRate) == 0 &&
+               Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, size, hitCount, missCount, evictionCount, hitRate);
+    }
+}
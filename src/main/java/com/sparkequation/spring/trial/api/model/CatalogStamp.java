@@ -0,0 +1,39 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.Objects;
+
+/**
+ * Validators of everything read from the catalog: the ETag changes with every committed product change and the last
+ * modified time is when it last changed, rounded up to the next second.
+ */
+public class CatalogStamp {
+    private final String eTag;
+    private final long lastModified;
+
+    public CatalogStamp(String eTag, long lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CatalogStamp that = (CatalogStamp) o;
+        return lastModified == that.lastModified &&
+               Objects.equals(eTag, that.eTag);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eTag, lastModified);
+    }
+}
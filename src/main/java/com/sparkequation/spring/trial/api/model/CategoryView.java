@@ -0,0 +1,42 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.Objects;
+
+/**
+ * A category of a {@link ProductView}, written the same way as a {@link Category}.
+ */
+public class CategoryView {
+    private final int id;
+    private final String name;
+
+    public CategoryView(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public static CategoryView of(Category category) {
+        return new CategoryView(category.getId(), category.getName());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CategoryView that = (CategoryView) o;
+        return id == that.id &&
+               Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name);
+    }
+}
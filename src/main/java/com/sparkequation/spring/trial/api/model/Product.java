@@ -1,6 +1,14 @@
 package com.sparkequation.spring.trial.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.sparkequation.spring.trial.api.validator.ProductExpirationDate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -10,12 +18,30 @@ import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "PRODUCT")
+@DynamicUpdate
+@Table(name = "PRODUCT", indexes = {
+        @Index(name = "IDX_PRODUCT_BRAND", columnList = "BRANDID"),
+        @Index(name = "IDX_PRODUCT_FEATURED_RATING", columnList = "ISFEATURED, RATING"),
+        @Index(name = "IDX_PRODUCT_RATING", columnList = "RATING"),
+        @Index(name = "IDX_PRODUCT_EXPIRATION", columnList = "EXPIRATIONDATE"),
+        @Index(name = "IDX_PRODUCT_RECEIPT", columnList = "RECEIPTDATE"),
+        @Index(name = "IDX_PRODUCT_STOCK", columnList = "ITEMSINSTOCK")
+})
+@NamedEntityGraph(name = Product.BRAND_AND_CATEGORIES, attributeNodes = {
+        @NamedAttributeNode("brand"),
+        @NamedAttributeNode("categories")
+})
 public class Product {
+    public final static String BRAND_AND_CATEGORIES = "Product.brandAndCategories";
+    /**
+     * Products rated above this are featured whatever they were sent with.
+     */
+    public final static double FEATURED_RATING = 8;
+
     @Id
     @Column(name = "ID")
     @GeneratedValue(strategy = GenerationType.AUTO, generator = "PRODUCT_SEQ")
-    @SequenceGenerator(name = "PRODUCT_SEQ", sequenceName = "PRODUCT_SEQ", allocationSize = 1, initialValue = 30)
+    @SequenceGenerator(name = "PRODUCT_SEQ", sequenceName = "PRODUCT_SEQ", allocationSize = 50, initialValue = 30)
     public int getId() {
         return id;
     }
@@ -24,6 +50,20 @@ public class Product {
         this.id = id;
     }
 
+    /**
+     * Incremented on every change, sent as the ETag of the product instead of in its body.
+     */
+    @JsonIgnore
+    @Version
+    @Column(name = "VERSION", columnDefinition = "integer default 0")
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Size(min = 1, max = 255, message = "Product name must have length from 1 to 255.")
     @Basic
     @Column(name = "NAME")
@@ -42,7 +82,7 @@ public class Product {
     }
 
     public void setFeatured(boolean featured) {
-        this.featured = rating > 8 || featured;
+        this.featured = rating > FEATURED_RATING || featured;
     }
 
     @ProductExpirationDate(message = "Expiration date must expire not less than 30 days since now.")
@@ -56,6 +96,20 @@ public class Product {
         this.expirationDate = expirationDate;
     }
 
+    /**
+     * Set by the expiry sweep once the expiration date has passed. Updates only accept future dates, so they clear it.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Basic
+    @Column(name = "ISEXPIRED", columnDefinition = "boolean default false")
+    public boolean isExpired() {
+        return expired;
+    }
+
+    public void setExpired(boolean expired) {
+        this.expired = expired;
+    }
+
     @Basic
     @Column(name = "ITEMSINSTOCK")
     public int getItemsInStock() {
@@ -86,8 +140,13 @@ public class Product {
         this.rating = rating;
     }
 
+    /**
+     * Loaded by id rather than joined when a product is read on its own, so it comes from the second-level cache.
+     * Queries that list products still fetch it in the same statement.
+     */
     @NotNull(message = "A product must have brand.")
-    @ManyToOne(targetEntity = Brand.class, cascade = {CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})
+    @ManyToOne(targetEntity = Brand.class, cascade = {CascadeType.REFRESH})
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "BRANDID", foreignKey = @ForeignKey(name = "fk_brand"))
     public Brand getBrand() {
         return brand;
@@ -99,8 +158,11 @@ public class Product {
 
     @NotNull(message = "A product must have categories.")
     @Size(min = 1, max = 5, message = "A product must have from 1 to 5 categories.")
-    @ManyToMany(cascade = {CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH}, fetch = FetchType.LAZY)
+    @ManyToMany(cascade = {CascadeType.REFRESH}, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "CATEGORY_PRODUCT",
+            indexes = {@Index(name = "IDX_CATEGORY_PRODUCT_CATEGORY", columnList = "CATEGORYID, PRODUCTID")},
             joinColumns = {
                     @JoinColumn(name = "PRODUCTID", referencedColumnName = "ID",
                             foreignKey = @ForeignKey(name = "fk_r_product_category"))},
@@ -123,6 +185,7 @@ public class Product {
         Product product = (Product) o;
         return id == product.id &&
                featured == product.featured &&
+               expired == product.expired &&
                itemsInStock == product.itemsInStock &&
                Double.compare(product.rating, rating) == 0 &&
                Objects.equals(name, product.name) &&
@@ -134,24 +197,66 @@ public class Product {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, featured, expirationDate, itemsInStock, receiptDate, rating, brand, categories);
+        return Objects.hash(id, name, featured, expirationDate, expired, itemsInStock, receiptDate, rating, brand, categories);
     }
 
     public void update(Product product) {
         name = product.name;
         expirationDate = product.expirationDate;
+        expired = false;
         itemsInStock = product.itemsInStock;
         receiptDate = product.receiptDate;
         rating = product.rating;
-        featured = rating > 8 || product.featured;
+        featured = rating > FEATURED_RATING || product.featured;
         brand = product.brand;
-        categories = product.categories;
+        updateCategories(product.categories);
+    }
+
+    public void patch(ProductPatch patch) {
+        if (patch.getName() != null) {
+            name = patch.getName();
+        }
+        if (patch.getExpirationDate() != null) {
+            expirationDate = patch.getExpirationDate();
+            expired = false;
+        }
+        if (patch.getItemsInStock() != null) {
+            itemsInStock = patch.getItemsInStock();
+        }
+        if (patch.getReceiptDate() != null) {
+            receiptDate = patch.getReceiptDate();
+        }
+        if (patch.getRating() != null) {
+            rating = patch.getRating();
+        }
+        featured = rating > FEATURED_RATING || (patch.getFeatured() == null ? featured : patch.getFeatured());
+        if (patch.getBrand() != null) {
+            brand = patch.getBrand();
+        }
+        if (patch.getCategories() != null) {
+            updateCategories(patch.getCategories());
+        }
+    }
+
+    /**
+     * Changes the managed set in place, so that only the removed and the added join table rows are written instead of
+     * the whole collection being recreated.
+     */
+    private void updateCategories(Set<Category> newCategories) {
+        if (categories == null) {
+            categories = newCategories;
+            return;
+        }
+        categories.retainAll(newCategories);
+        categories.addAll(newCategories);
     }
 
     private int id;
+    private int version;
     private String name;
     private boolean featured;
     private Date expirationDate;
+    private boolean expired;
     private int itemsInStock;
     private Date receiptDate;
     private double rating;
@@ -0,0 +1,165 @@
+package com.sparkequation.spring.trial.api.model;
+
+import javax.persistence.*;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A product removed by a bulk delete, as it was when it was removed. The rows are moved here by INSERT ... SELECT
+ * statements in the transaction of the delete, the brand and categories are kept as ids, without foreign keys.
+ */
+@Entity
+@Table(name = "PRODUCTARCHIVE", indexes = {
+        @Index(name = "IDX_PRODUCTARCHIVE_ARCHIVEDAT", columnList = "ARCHIVEDAT")
+})
+public class ProductArchive {
+    @Id
+    @Column(name = "ID")
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    @Basic
+    @Column(name = "VERSION")
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    @Basic
+    @Column(name = "NAME")
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Basic
+    @Column(name = "ISFEATURED")
+    public boolean isFeatured() {
+        return featured;
+    }
+
+    public void setFeatured(boolean featured) {
+        this.featured = featured;
+    }
+
+    @Basic
+    @Column(name = "EXPIRATIONDATE")
+    public Date getExpirationDate() {
+        return expirationDate;
+    }
+
+    public void setExpirationDate(Date expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+
+    @Basic
+    @Column(name = "ISEXPIRED")
+    public boolean isExpired() {
+        return expired;
+    }
+
+    public void setExpired(boolean expired) {
+        this.expired = expired;
+    }
+
+    @Basic
+    @Column(name = "ITEMSINSTOCK")
+    public int getItemsInStock() {
+        return itemsInStock;
+    }
+
+    public void setItemsInStock(int itemsInStock) {
+        this.itemsInStock = itemsInStock;
+    }
+
+    @Basic
+    @Column(name = "RECEIPTDATE")
+    public Date getReceiptDate() {
+        return receiptDate;
+    }
+
+    public void setReceiptDate(Date receiptDate) {
+        this.receiptDate = receiptDate;
+    }
+
+    @Basic
+    @Column(name = "RATING")
+    public double getRating() {
+        return rating;
+    }
+
+    public void setRating(double rating) {
+        this.rating = rating;
+    }
+
+    @Basic
+    @Column(name = "BRANDID")
+    public Integer getBrandId() {
+        return brandId;
+    }
+
+    public void setBrandId(Integer brandId) {
+        this.brandId = brandId;
+    }
+
+    @ElementCollection
+    @CollectionTable(name = "CATEGORY_PRODUCTARCHIVE", joinColumns = @JoinColumn(name = "PRODUCTID"))
+    @Column(name = "CATEGORYID")
+    public Set<Integer> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public void setCategoryIds(Set<Integer> categoryIds) {
+        this.categoryIds = categoryIds;
+    }
+
+    @Basic
+    @Column(name = "ARCHIVEDAT")
+    public Date getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(Date archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductArchive that = (ProductArchive) o;
+        return id == that.id &&
+               version == that.version &&
+               Objects.equals(archivedAt, that.archivedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, version, archivedAt);
+    }
+
+    private int id;
+    private int version;
+    private String name;
+    private boolean featured;
+    private Date expirationDate;
+    private boolean expired;
+    private int itemsInStock;
+    private Date receiptDate;
+    private double rating;
+    private Integer brandId;
+    private Set<Integer> categoryIds;
+    private Date archivedAt;
+}
@@ -0,0 +1,36 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ProductBatchError {
+    private final int index;
+    private final List<String> errors;
+
+    public ProductBatchError(int index, List<String> errors) {
+        this.index = index;
+        this.errors = errors;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductBatchError that = (ProductBatchError) o;
+        return index == that.index &&
+               Objects.equals(errors, that.errors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, errors);
+    }
+}
@@ -0,0 +1,43 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ProductBatchResult {
+    private final int received;
+    private final int inserted;
+    private final List<ProductBatchError> failures;
+
+    public ProductBatchResult(int received, int inserted, List<ProductBatchError> failures) {
+        this.received = received;
+        this.inserted = inserted;
+        this.failures = failures;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public List<ProductBatchError> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductBatchResult that = (ProductBatchResult) o;
+        return received == that.received &&
+               inserted == that.inserted &&
+               Objects.equals(failures, that.failures);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(received, inserted, failures);
+    }
+}
@@ -0,0 +1,62 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.Objects;
+
+/**
+ * Where a bulk delete stands after a committed chunk: the totals so far, and whether it is over.
+ */
+public class ProductBulkDeleteProgress {
+    private final int chunks;
+    private final int deleted;
+    private final int archived;
+    private final boolean done;
+
+    public ProductBulkDeleteProgress(int chunks, int deleted, int archived, boolean done) {
+        this.chunks = chunks;
+        this.deleted = deleted;
+        this.archived = archived;
+        this.done = done;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public int getArchived() {
+        return archived;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductBulkDeleteProgress that = (ProductBulkDeleteProgress) o;
+        return chunks == that.chunks &&
+               deleted == that.deleted &&
+               archived == that.archived &&
+               done == that.done;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(chunks, deleted, archived, done);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductBulkDeleteProgress{" +
+               "chunks=" + chunks +
+               ", deleted=" + deleted +
+               ", archived=" + archived +
+               ", done=" + done +
+               '}';
+    }
+}
@@ -0,0 +1,112 @@
+package com.sparkequation.spring.trial.api.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.*;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * A row of the product change outbox, appended in the transaction of the change. Sequences come from a database
+ * sequence, taken just before commit: they increase with the commits, but a transaction that hasn't committed yet or
+ * rolled back leaves a gap, see {@link com.sparkequation.spring.trial.api.repository.ProductChangeOutboxRepository}.
+ */
+@Entity
+@Table(name = "PRODUCTCHANGE")
+public class ProductChange {
+    public final static String SEQUENCE_NAME = "PRODUCTCHANGE_SEQ";
+
+    @Id
+    @Column(name = "SEQUENCE")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
+    @SequenceGenerator(name = SEQUENCE_NAME, sequenceName = SEQUENCE_NAME, allocationSize = 1)
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    @Basic
+    @Column(name = "PRODUCTID")
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    /**
+     * One of SAVED, STOCK, EXPIRED and DELETED, or BRAND and CATEGORY for a brand or category that was created along
+     * with a product, whose id is then the product id.
+     */
+    @Basic
+    @Column(name = "CHANGETYPE")
+    public String getChange() {
+        return change;
+    }
+
+    public void setChange(String change) {
+        this.change = change;
+    }
+
+    /**
+     * When the change was appended, which is a little before its commit.
+     */
+    @Basic
+    @Column(name = "CHANGEDAT")
+    public Date getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Date changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    /**
+     * The node of the cluster that committed the change.
+     */
+    @Basic
+    @Column(name = "ORIGIN")
+    @JsonIgnore
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductChange that = (ProductChange) o;
+        return sequence == that.sequence &&
+               productId == that.productId &&
+               Objects.equals(change, that.change) &&
+               Objects.equals(changedAt, that.changedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sequence, productId, change, changedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductChange{" +
+               "sequence=" + sequence +
+               ", productId=" + productId +
+               ", change='" + change + '\'' +
+               '}';
+    }
+
+    private long sequence;
+    private int productId;
+    private String change;
+    private Date changedAt;
+    private String origin;
+}
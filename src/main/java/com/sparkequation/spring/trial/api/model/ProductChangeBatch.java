@@ -0,0 +1,40 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ProductChangeBatch {
+    private final List<ProductChange> changes;
+    private final long lastSequence;
+
+    /**
+     * @param lastSequence the sequence to read the next batch after: the one of the last change, or the one this
+     *                     batch was read after if there was none
+     */
+    public ProductChangeBatch(List<ProductChange> changes, long lastSequence) {
+        this.changes = changes;
+        this.lastSequence = lastSequence;
+    }
+
+    public List<ProductChange> getChanges() {
+        return changes;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductChangeBatch that = (ProductChangeBatch) o;
+        return lastSequence == that.lastSequence &&
+               Objects.equals(changes, that.changes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(changes, lastSequence);
+    }
+}
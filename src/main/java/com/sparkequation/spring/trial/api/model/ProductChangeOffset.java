@@ -0,0 +1,49 @@
+package com.sparkequation.spring.trial.api.model;
+
+import javax.persistence.*;
+import java.util.Objects;
+
+/**
+ * The last sequence a consumer of the product changes has processed. The changes up to the lowest stored offset are
+ * deleted once they are old enough, see {@code ProductChangeRetention}.
+ */
+@Entity
+@Table(name = "PRODUCTCHANGEOFFSET")
+public class ProductChangeOffset {
+    @Id
+    @Column(name = "CONSUMER")
+    public String getConsumer() {
+        return consumer;
+    }
+
+    public void setConsumer(String consumer) {
+        this.consumer = consumer;
+    }
+
+    @Basic
+    @Column(name = "SEQUENCE")
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductChangeOffset that = (ProductChangeOffset) o;
+        return sequence == that.sequence &&
+               Objects.equals(consumer, that.consumer);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(consumer, sequence);
+    }
+
+    private String consumer;
+    private long sequence;
+}
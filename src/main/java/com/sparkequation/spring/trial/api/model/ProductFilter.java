@@ -0,0 +1,172 @@
+package com.sparkequation.spring.trial.api.model;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+public class ProductFilter {
+    private Integer brandId;
+    private List<Integer> categoryId;
+    private Boolean featured;
+    private Double minRating;
+    private Double maxRating;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private Date expiresFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private Date expiresTo;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private Date receivedFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private Date receivedTo;
+    private Boolean inStock;
+    private String sort = "id";
+    private String direction = "asc";
+    private String token;
+    private Integer size;
+
+    public Integer getBrandId() {
+        return brandId;
+    }
+
+    public void setBrandId(Integer brandId) {
+        this.brandId = brandId;
+    }
+
+    public List<Integer> getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(List<Integer> categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Boolean getFeatured() {
+        return featured;
+    }
+
+    public void setFeatured(Boolean featured) {
+        this.featured = featured;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    public void setMaxRating(Double maxRating) {
+        this.maxRating = maxRating;
+    }
+
+    public Date getExpiresFrom() {
+        return expiresFrom;
+    }
+
+    public void setExpiresFrom(Date expiresFrom) {
+        this.expiresFrom = expiresFrom;
+    }
+
+    public Date getExpiresTo() {
+        return expiresTo;
+    }
+
+    public void setExpiresTo(Date expiresTo) {
+        this.expiresTo = expiresTo;
+    }
+
+    public Date getReceivedFrom() {
+        return receivedFrom;
+    }
+
+    public void setReceivedFrom(Date receivedFrom) {
+        this.receivedFrom = receivedFrom;
+    }
+
+    public Date getReceivedTo() {
+        return receivedTo;
+    }
+
+    public void setReceivedTo(Date receivedTo) {
+        this.receivedTo = receivedTo;
+    }
+
+    public Boolean getInStock() {
+        return inStock;
+    }
+
+    public void setInStock(Boolean inStock) {
+        this.inStock = inStock;
+    }
+
+    @Pattern(regexp = "id|rating|itemsInStock", message = "Sort must be one of id, rating, itemsInStock.")
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    @Pattern(regexp = "asc|desc", message = "Direction must be asc or desc.")
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    @Positive(message = "Page size must be positive.")
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductFilter that = (ProductFilter) o;
+        return Objects.equals(brandId, that.brandId) &&
+               Objects.equals(categoryId, that.categoryId) &&
+               Objects.equals(featured, that.featured) &&
+               Objects.equals(minRating, that.minRating) &&
+               Objects.equals(maxRating, that.maxRating) &&
+               Objects.equals(expiresFrom, that.expiresFrom) &&
+               Objects.equals(expiresTo, that.expiresTo) &&
+               Objects.equals(receivedFrom, that.receivedFrom) &&
+               Objects.equals(receivedTo, that.receivedTo) &&
+               Objects.equals(inStock, that.inStock) &&
+               Objects.equals(sort, that.sort) &&
+               Objects.equals(direction, that.direction) &&
+               Objects.equals(token, that.token) &&
+               Objects.equals(size, that.size);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(brandId, categoryId, featured, minRating, maxRating, expiresFrom, expiresTo, receivedFrom,
+                            receivedTo, inStock, sort, direction, token, size);
+    }
+}
@@ -0,0 +1,36 @@
+package com.sparkequation.spring.trial.api.model;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ProductPage {
+    private final List<ProductView> products;
+    private final String nextToken;
+
+    public ProductPage(List<ProductView> products, String nextToken) {
+        this.products = products;
+        this.nextToken = nextToken;
+    }
+
+    public List<ProductView> getProducts() {
+        return products;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductPage that = (ProductPage) o;
+        return Objects.equals(products, that.products) &&
+               Objects.equals(nextToken, that.nextToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(products, nextToken);
+    }
+}
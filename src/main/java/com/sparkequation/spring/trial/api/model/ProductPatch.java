@@ -0,0 +1,90 @@
+package com.sparkequation.spring.trial.api.model;
+
+import com.sparkequation.spring.trial.api.validator.ProductExpirationDate;
+
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Partial update of a product: the fields left {@code null} keep their current value.
+ */
+public class ProductPatch {
+    private String name;
+    private Boolean featured;
+    private Date expirationDate;
+    private Integer itemsInStock;
+    private Date receiptDate;
+    private Double rating;
+    private Brand brand;
+    private Set<Category> categories;
+
+    @Size(min = 1, max = 255, message = "Product name must have length from 1 to 255.")
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Boolean getFeatured() {
+        return featured;
+    }
+
+    public void setFeatured(Boolean featured) {
+        this.featured = featured;
+    }
+
+    @ProductExpirationDate(message = "Expiration date must expire not less than 30 days since now.")
+    public Date getExpirationDate() {
+        return expirationDate;
+    }
+
+    public void setExpirationDate(Date expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+
+    @PositiveOrZero(message = "Items in stock must not be negative.")
+    public Integer getItemsInStock() {
+        return itemsInStock;
+    }
+
+    public void setItemsInStock(Integer itemsInStock) {
+        this.itemsInStock = itemsInStock;
+    }
+
+    public Date getReceiptDate() {
+        return receiptDate;
+    }
+
+    public void setReceiptDate(Date receiptDate) {
+        this.receiptDate = receiptDate;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+
+    public void setRating(Double rating) {
+        this.rating = rating;
+    }
+
+    public Brand getBrand() {
+        return brand;
+    }
+
+    public void setBrand(Brand brand) {
+        this.brand = brand;
+    }
+
+    @Size(min = 1, max = 5, message = "A product must have from 1 to 5 categories.")
+    public Set<Category> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Set<Category> categories) {
+        this.categories = categories;
+    }
+}
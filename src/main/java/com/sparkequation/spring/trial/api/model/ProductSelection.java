@@ -0,0 +1,81 @@
+package com.sparkequation.spring.trial.api.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * The products of a bulk delete: exactly one of the ids, a brand, a category or an expiration cutoff.
+ */
+public class ProductSelection {
+    private List<Integer> ids;
+    private Integer brandId;
+    private Integer categoryId;
+    private Date expiresBy;
+
+    @Size(min = 1, message = "Ids must not be empty.")
+    public List<@Positive(message = "Ids must be positive.") Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    @Positive(message = "Brand id must be positive.")
+    public Integer getBrandId() {
+        return brandId;
+    }
+
+    public void setBrandId(Integer brandId) {
+        this.brandId = brandId;
+    }
+
+    @Positive(message = "Category id must be positive.")
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * Selects the products with an expiration date up to this one, expired or not.
+     */
+    public Date getExpiresBy() {
+        return expiresBy;
+    }
+
+    public void setExpiresBy(Date expiresBy) {
+        this.expiresBy = expiresBy;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Exactly one of ids, brandId, categoryId and expiresBy must be set.")
+    public boolean isSingleCriterion() {
+        return Stream.of(ids, brandId, categoryId, expiresBy).filter(Objects::nonNull).count() == 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductSelection that = (ProductSelection) o;
+        return Objects.equals(ids, that.ids) &&
+               Objects.equals(brandId, that.brandId) &&
+               Objects.equals(categoryId, that.categoryId) &&
+               Objects.equals(expiresBy, that.expiresBy);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ids, brandId, categoryId, expiresBy);
+    }
+}
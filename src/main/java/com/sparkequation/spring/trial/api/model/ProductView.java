@@ -0,0 +1,160 @@
+package com.sparkequation.spring.trial.api.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * What the read endpoints return for a product: an immutable copy written with the same fields as the
+ * {@link Product} it was read from. Views are built from the columns of a query rather than from managed entities,
+ * so reads leave nothing in the persistence context and rendering can't trigger a lazy load. Categories are listed
+ * by id.
+ */
+public class ProductView {
+    private final int id;
+    private final int version;
+    private final String name;
+    private final boolean featured;
+    private final Date expirationDate;
+    private final boolean expired;
+    private final int itemsInStock;
+    private final Date receiptDate;
+    private final double rating;
+
+    private final BrandView brand;
+    private final List<CategoryView> categories;
+
+    public ProductView(
+            int id,
+            int version,
+            String name,
+            boolean featured,
+            Date expirationDate,
+            boolean expired,
+            int itemsInStock,
+            Date receiptDate,
+            double rating,
+            BrandView brand,
+            List<CategoryView> categories
+    ) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.featured = featured;
+        this.expirationDate = copy(expirationDate);
+        this.expired = expired;
+        this.itemsInStock = itemsInStock;
+        this.receiptDate = copy(receiptDate);
+        this.rating = rating;
+        this.brand = brand;
+        this.categories = categories == null ? null : List.copyOf(categories);
+    }
+
+    /**
+     * The view of a product as written, for the ones the write paths hand out.
+     */
+    public static ProductView of(Product product) {
+        return new ProductView(
+                product.getId(),
+                product.getVersion(),
+                product.getName(),
+                product.isFeatured(),
+                product.getExpirationDate(),
+                product.isExpired(),
+                product.getItemsInStock(),
+                product.getReceiptDate(),
+                product.getRating(),
+                BrandView.of(product.getBrand()),
+                product.getCategories() == null
+                ? null
+                : product.getCategories()
+                         .stream()
+                         .map(CategoryView::of)
+                         .sorted(Comparator.comparingInt(CategoryView::getId))
+                         .collect(Collectors.toList())
+        );
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sent as the ETag of the product, as for {@link Product#getVersion()}.
+     */
+    @JsonIgnore
+    public int getVersion() {
+        return version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isFeatured() {
+        return featured;
+    }
+
+    public Date getExpirationDate() {
+        return expirationDate;
+    }
+
+    public boolean isExpired() {
+        return expired;
+    }
+
+    public int getItemsInStock() {
+        return itemsInStock;
+    }
+
+    public Date getReceiptDate() {
+        return receiptDate;
+    }
+
+    public double getRating() {
+        return rating;
+    }
+
+    public BrandView getBrand() {
+        return brand;
+    }
+
+    public List<CategoryView> getCategories() {
+        return categories;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductView that = (ProductView) o;
+        return id == that.id &&
+               version == that.version &&
+               featured == that.featured &&
+               expired == that.expired &&
+               itemsInStock == that.itemsInStock &&
+               Double.compare(that.rating, rating) == 0 &&
+               Objects.equals(name, that.name) &&
+               Objects.equals(expirationDate, that.expirationDate) &&
+               Objects.equals(receiptDate, that.receiptDate) &&
+               Objects.equals(brand, that.brand) &&
+               Objects.equals(categories, that.categories);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, version, name, featured, expirationDate, expired, itemsInStock, receiptDate, rating,
+                            brand, categories);
+    }
+
+    /**
+     * Dates are mutable, and the ones read from the database are {@link java.sql.Timestamp}s.
+     */
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+}
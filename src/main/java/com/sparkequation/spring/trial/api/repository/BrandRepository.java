@@ -0,0 +1,22 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.model.Brand;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+public interface BrandRepository
+        extends JpaRepository<Brand, Integer> {
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.BRANDS, unless = "#result == null")
+    Optional<Brand> findById(Integer id);
+
+    @Cacheable(cacheNames = CacheConfig.BRANDS, unless = "#result == null")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Optional<Brand> findFirstByNameAndCountry(String name, String country);
+}
@@ -0,0 +1,22 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.model.Category;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+public interface CategoryRepository
+        extends JpaRepository<Category, Integer> {
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, unless = "#result == null")
+    Optional<Category> findById(Integer id);
+
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, unless = "#result == null")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Optional<Category> findFirstByName(String name);
+}
@@ -0,0 +1,42 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The statements of a bulk delete, one per table and chunk whatever the chunk size. Meant to run in one transaction
+ * per chunk: lock the ids, archive them, delete them.
+ */
+public interface ProductBulkDeleteRepository {
+
+    /**
+     * Locks the products of {@code ids} that exist, in id order, so a concurrent update of one of them waits for the
+     * chunk to commit and can't be lost between its archive and its delete.
+     *
+     * @return the ids locked, in ascending order
+     */
+    List<Integer> lockIds(Collection<Integer> ids);
+
+    /**
+     * Same as {@link #lockIds(Collection)} for the next {@code limit} products of the brand, the category or the
+     * expiration cutoff of {@code selection}, after {@code afterId}.
+     */
+    List<Integer> lockIds(ProductSelection selection, int afterId, int limit);
+
+    /**
+     * Copies the products of {@code ids} and their category rows to the archive tables.
+     *
+     * @return the number of products archived
+     */
+    int archive(Collection<Integer> ids, Date archivedAt);
+
+    /**
+     * Deletes the products of {@code ids} and their category rows.
+     *
+     * @return the number of products deleted
+     */
+    int delete(Collection<Integer> ids);
+}
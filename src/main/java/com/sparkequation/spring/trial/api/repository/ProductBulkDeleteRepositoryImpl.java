@@ -0,0 +1,81 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Plain JDBC for the same reason as the stock updates: set-based statements that Hibernate would have to turn into
+ * a load and a delete per product, and per category row, to keep its persistence context and caches right. The
+ * callers evict the caches of the deleted products themselves.
+ */
+public class ProductBulkDeleteRepositoryImpl implements ProductBulkDeleteRepository {
+
+    private final static String SELECTED_BY_IDS = "Products selected by ids are locked by ids.";
+    private final static String LOCK_IDS = "SELECT ID FROM PRODUCT WHERE ID IN (:ids) ORDER BY ID FOR UPDATE";
+    private final static String LOCK_SELECTED_IDS = "SELECT ID FROM PRODUCT WHERE %s AND ID > :afterId "
+                                                    + "ORDER BY ID LIMIT :limit FOR UPDATE";
+    private final static String BY_BRAND = "BRANDID = :brandId";
+    private final static String BY_CATEGORY = "ID IN (SELECT PRODUCTID FROM CATEGORY_PRODUCT "
+                                              + "WHERE CATEGORYID = :categoryId)";
+    private final static String BY_EXPIRATION = "EXPIRATIONDATE <= :expiresBy";
+    private final static String ARCHIVE_PRODUCTS = "INSERT INTO PRODUCTARCHIVE "
+                                                   + "(ID, VERSION, NAME, ISFEATURED, EXPIRATIONDATE, ISEXPIRED, "
+                                                   + "ITEMSINSTOCK, RECEIPTDATE, RATING, BRANDID, ARCHIVEDAT) "
+                                                   + "SELECT ID, VERSION, NAME, ISFEATURED, EXPIRATIONDATE, ISEXPIRED, "
+                                                   + "ITEMSINSTOCK, RECEIPTDATE, RATING, BRANDID, :archivedAt "
+                                                   + "FROM PRODUCT WHERE ID IN (:ids)";
+    private final static String ARCHIVE_CATEGORIES = "INSERT INTO CATEGORY_PRODUCTARCHIVE (PRODUCTID, CATEGORYID) "
+                                                     + "SELECT PRODUCTID, CATEGORYID FROM CATEGORY_PRODUCT "
+                                                     + "WHERE PRODUCTID IN (:ids)";
+    private final static String DELETE_CATEGORIES = "DELETE FROM CATEGORY_PRODUCT WHERE PRODUCTID IN (:ids)";
+    private final static String DELETE_PRODUCTS = "DELETE FROM PRODUCT WHERE ID IN (:ids)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Integer> lockIds(Collection<Integer> ids) {
+        return jdbcTemplate.queryForList(LOCK_IDS, new MapSqlParameterSource("ids", ids), Integer.class);
+    }
+
+    @Override
+    public List<Integer> lockIds(ProductSelection selection, int afterId, int limit) {
+        final MapSqlParameterSource parameters = new MapSqlParameterSource("afterId", afterId).addValue("limit", limit);
+        final String criterion;
+        if (selection.getBrandId() != null) {
+            criterion = BY_BRAND;
+            parameters.addValue("brandId", selection.getBrandId());
+        } else if (selection.getCategoryId() != null) {
+            criterion = BY_CATEGORY;
+            parameters.addValue("categoryId", selection.getCategoryId());
+        } else if (selection.getExpiresBy() != null) {
+            criterion = BY_EXPIRATION;
+            parameters.addValue("expiresBy", selection.getExpiresBy());
+        } else {
+            throw new IllegalArgumentException(SELECTED_BY_IDS);
+        }
+        return jdbcTemplate.queryForList(String.format(LOCK_SELECTED_IDS, criterion), parameters, Integer.class);
+    }
+
+    @Override
+    public int archive(Collection<Integer> ids, Date archivedAt) {
+        final MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids)
+                .addValue("archivedAt", archivedAt);
+        final int archived = jdbcTemplate.update(ARCHIVE_PRODUCTS, parameters);
+        jdbcTemplate.update(ARCHIVE_CATEGORIES, parameters);
+        return archived;
+    }
+
+    @Override
+    public int delete(Collection<Integer> ids) {
+        final MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+        jdbcTemplate.update(DELETE_CATEGORIES, parameters);
+        return jdbcTemplate.update(DELETE_PRODUCTS, parameters);
+    }
+}
@@ -0,0 +1,14 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.ProductChangeOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface ProductChangeOffsetRepository extends JpaRepository<ProductChangeOffset, String> {
+
+    /**
+     * @return the offset of the consumer furthest behind, {@code null} without consumers
+     */
+    @Query("select min(o.sequence) from ProductChangeOffset o")
+    Long findLowestSequence();
+}
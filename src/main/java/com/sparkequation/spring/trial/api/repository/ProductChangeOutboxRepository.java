@@ -0,0 +1,40 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The outbox is read in sequence order, but the sequences are taken before commit: a change may become visible after
+ * one with a higher sequence, and a rolled back one never does. The reads stop before a gap in the sequences until
+ * the change after it is older than {@code api.product.changes.gap-timeout}, after which the gap counts as rolled
+ * back. A change that commits later than that after its sequence was taken is missed by the readers that passed it.
+ */
+public interface ProductChangeOutboxRepository {
+
+    /**
+     * Numbers the changes from the database sequence, stamps them with the current time and inserts them in one
+     * batch. Has to run in the transaction of the changes, as late as possible, which keeps the gaps short.
+     */
+    void append(List<ProductChange> changes);
+
+    /**
+     * The changes with a sequence above {@code sequence}, oldest first, up to the first recent gap. Read without a
+     * persistence context: meant for polling, which runs often and reads the rows once.
+     */
+    List<ProductChange> findAfter(long sequence, int limit);
+
+    /**
+     * @return the highest sequence past the gap timeout, 0 before the first change
+     */
+    long findLastSettledSequence();
+
+    /**
+     * Deletes the changes up to {@code sequence} appended before {@code appendedBefore}, and all changes appended
+     * before {@code expiredBefore}. The last change is kept whatever its age.
+     *
+     * @return the number of changes deleted
+     */
+    int deleteOlderThan(long sequence, Date appendedBefore, Date expiredBefore);
+}
@@ -0,0 +1,99 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Plain JDBC: all the sequences of a batch are taken with one statement, where Hibernate would take them one by one
+ * and read every row with an assigned id before inserting it.
+ */
+public class ProductChangeOutboxRepositoryImpl implements ProductChangeOutboxRepository {
+
+    private final static String NEXT_SEQUENCES = "SELECT NEXT VALUE FOR " + ProductChange.SEQUENCE_NAME
+                                                 + " FROM SYSTEM_RANGE(1, ?)";
+    private final static String INSERT_CHANGE = "INSERT INTO PRODUCTCHANGE "
+                                                + "(SEQUENCE, PRODUCTID, CHANGETYPE, CHANGEDAT, ORIGIN) "
+                                                + "VALUES (?, ?, ?, ?, ?)";
+    private final static String SELECT_CHANGES = "SELECT SEQUENCE, PRODUCTID, CHANGETYPE, CHANGEDAT, ORIGIN "
+                                                 + "FROM PRODUCTCHANGE WHERE SEQUENCE > ? ORDER BY SEQUENCE LIMIT ?";
+    private final static String SELECT_LAST_SETTLED = "SELECT COALESCE(MAX(SEQUENCE), 0) FROM PRODUCTCHANGE "
+                                                      + "WHERE CHANGEDAT < ?";
+    private final static String DELETE_CHANGES = "DELETE FROM PRODUCTCHANGE "
+                                                 + "WHERE SEQUENCE < (SELECT MAX(SEQUENCE) FROM PRODUCTCHANGE) "
+                                                 + "AND (SEQUENCE <= ? AND CHANGEDAT < ? OR CHANGEDAT < ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${api.product.changes.gap-timeout:5000}")
+    private long gapTimeout;
+
+    @Override
+    public void append(List<ProductChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        final List<Long> sequences = jdbcTemplate.queryForList(NEXT_SEQUENCES, Long.class, changes.size());
+        final Date now = new Date();
+        for (int i = 0; i < changes.size(); i++) {
+            changes.get(i).setSequence(sequences.get(i));
+            changes.get(i).setChangedAt(now);
+        }
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, changes.stream().map(change -> new Object[]{
+                change.getSequence(),
+                change.getProductId(),
+                change.getChange(),
+                new Timestamp(change.getChangedAt().getTime()),
+                change.getOrigin()
+        }).collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<ProductChange> findAfter(long sequence, int limit) {
+        final List<ProductChange> changes = jdbcTemplate.query(SELECT_CHANGES, (resultSet, row) -> {
+            final ProductChange change = new ProductChange();
+            change.setSequence(resultSet.getLong(1));
+            change.setProductId(resultSet.getInt(2));
+            change.setChange(resultSet.getString(3));
+            change.setChangedAt(resultSet.getTimestamp(4));
+            change.setOrigin(resultSet.getString(5));
+            return change;
+        }, sequence, limit);
+        final long settledBefore = System.currentTimeMillis() - gapTimeout;
+        long expected = sequence + 1;
+        for (int i = 0; i < changes.size(); i++) {
+            final ProductChange change = changes.get(i);
+            if (change.getSequence() != expected && change.getChangedAt().getTime() >= settledBefore) {
+                return changes.subList(0, i);
+            }
+            expected = change.getSequence() + 1;
+        }
+        return changes;
+    }
+
+    @Override
+    public long findLastSettledSequence() {
+        return jdbcTemplate.queryForObject(
+                SELECT_LAST_SETTLED,
+                Long.class,
+                new Timestamp(System.currentTimeMillis() - gapTimeout)
+        );
+    }
+
+    @Override
+    public int deleteOlderThan(long sequence, Date appendedBefore, Date expiredBefore) {
+        return jdbcTemplate.update(
+                DELETE_CHANGES,
+                sequence,
+                new Timestamp(appendedBefore.getTime()),
+                new Timestamp(expiredBefore.getTime())
+        );
+    }
+}
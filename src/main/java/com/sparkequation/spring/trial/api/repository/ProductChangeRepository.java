@@ -0,0 +1,7 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long>, ProductChangeOutboxRepository {
+}
@@ -2,10 +2,60 @@ package com.sparkequation.spring.trial.api.repository;
 
 
 import com.sparkequation.spring.trial.api.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.io.Serializable;
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository
-        extends JpaRepository<Product, Integer>  {
+        extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product>, ProductSearchRepository,
+                ProductStockRepository, ProductViewRepository, ProductBulkDeleteRepository {
+
+    @Override
+    @EntityGraph(Product.BRAND_AND_CATEGORIES)
+    List<Product> findAll();
+
+    @EntityGraph(Product.BRAND_AND_CATEGORIES)
+    Optional<Product> findWithBrandAndCategoriesById(Integer id);
+
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    @Query("select p.id from Product p where p.id > :id order by p.id")
+    List<Integer> findIdsAfter(@Param("id") int id, Pageable pageable);
+
+    @EntityGraph(Product.BRAND_AND_CATEGORIES)
+    List<Product> findByIdInOrderByIdAsc(Collection<Integer> ids);
+
+    @EntityGraph(Product.BRAND_AND_CATEGORIES)
+    @Query("select p from Product p where (p.featured = true or p.rating > :rating) and p.expired = false")
+    List<Product> findFeatured(@Param("rating") double rating);
+
+    @Query("select p.id, p.expirationDate from Product p where p.expirationDate is not null and p.expired = false")
+    List<Object[]> findExpirationDates();
+
+    @Query("select p.id, p.version, p.name, b.name, p.rating from Product p left join p.brand b")
+    List<Object[]> findSearchTerms();
+
+    /**
+     * Locks the products of {@code ids} that expired by {@code now} and aren't flagged yet, so a concurrent update
+     * can't move their expiration date before they are {@link #markExpired flagged}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id from Product p where p.id in :ids and p.expired = false and p.expirationDate <= :now")
+    List<Integer> lockExpiredIds(@Param("ids") Collection<Integer> ids, @Param("now") Date now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.expired = true, p.version = p.version + 1 where p.id in :ids")
+    int markExpired(@Param("ids") Collection<Integer> ids);
 }
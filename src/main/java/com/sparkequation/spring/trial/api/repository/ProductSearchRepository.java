@@ -0,0 +1,22 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.Tuple;
+import java.util.List;
+
+public interface ProductSearchRepository {
+
+    /**
+     * Returns up to {@code limit} (id, sort value) tuples of matching products in keyset order,
+     * without loading the products themselves.
+     */
+    List<Tuple> findSortKeys(
+            Specification<Product> specification,
+            ProductSortKey sortKey,
+            Sort.Direction direction,
+            int limit
+    );
+}
@@ -0,0 +1,41 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findSortKeys(
+            Specification<Product> specification,
+            ProductSortKey sortKey,
+            Sort.Direction direction,
+            int limit
+    ) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        final Root<Product> root = query.from(Product.class);
+        final Path<Object> idPath = root.get("id");
+        final Path<Object> sortPath = root.get(sortKey.getAttribute());
+        query.multiselect(idPath, sortPath).where(specification.toPredicate(root, query, builder));
+        if (direction.isAscending()) {
+            query.orderBy(builder.asc(sortPath), builder.asc(idPath));
+        } else {
+            query.orderBy(builder.desc(sortPath), builder.desc(idPath));
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,30 @@
+package com.sparkequation.spring.trial.api.repository;
+
+/**
+ * Columns a product search can be ordered by. All of them are non-null, so together with the id they give a total
+ * order that a keyset cursor can seek on.
+ */
+public enum ProductSortKey {
+    ID("id"),
+    RATING("rating"),
+    ITEMS_IN_STOCK("itemsInStock");
+
+    private final String attribute;
+
+    ProductSortKey(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public static ProductSortKey fromAttribute(String attribute) {
+        for (ProductSortKey key : values()) {
+            if (key.attribute.equals(attribute)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort attribute: " + attribute);
+    }
+}
@@ -0,0 +1,94 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product search predicates. Every one of them maps to a single indexed column of PRODUCT or CATEGORY_PRODUCT.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductFilter filter) {
+        return (root, query, builder) -> {
+            final List<Predicate> predicates = new ArrayList<>();
+            if (filter.getBrandId() != null) {
+                predicates.add(builder.equal(root.get("brand").get("id"), filter.getBrandId()));
+            }
+            if (filter.getCategoryId() != null && !filter.getCategoryId().isEmpty()) {
+                // A subquery rather than a join, so a product in several requested categories is returned once.
+                final Subquery<Integer> inCategories = query.subquery(Integer.class);
+                final Root<Product> categorized = inCategories.from(Product.class);
+                final Join<Product, Category> category = categorized.join("categories");
+                inCategories.select(categorized.get("id")).where(category.get("id").in(filter.getCategoryId()));
+                predicates.add(root.get("id").in(inCategories));
+            }
+            if (filter.getFeatured() != null) {
+                predicates.add(builder.equal(root.get("featured"), filter.getFeatured()));
+            }
+            if (filter.getMinRating() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("rating"), filter.getMinRating()));
+            }
+            if (filter.getMaxRating() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("rating"), filter.getMaxRating()));
+            }
+            if (filter.getExpiresFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("expirationDate"), filter.getExpiresFrom()));
+            }
+            if (filter.getExpiresTo() != null) {
+                predicates.add(builder.lessThan(root.get("expirationDate"), filter.getExpiresTo()));
+            }
+            if (filter.getReceivedFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("receiptDate"), filter.getReceivedFrom()));
+            }
+            if (filter.getReceivedTo() != null) {
+                predicates.add(builder.lessThan(root.get("receiptDate"), filter.getReceivedTo()));
+            }
+            if (filter.getInStock() != null) {
+                final Path<Integer> itemsInStock = root.get("itemsInStock");
+                predicates.add(filter.getInStock() ? builder.gt(itemsInStock, 0) : builder.le(itemsInStock, 0));
+            }
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Seeks past the last row of the previous page: rows whose sort value comes after {@code lastValue},
+     * or equals it with a greater (or, descending, smaller) id.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(
+            ProductSortKey sortKey,
+            Sort.Direction direction,
+            Comparable lastValue,
+            int lastId
+    ) {
+        return (root, query, builder) -> {
+            final Path sortPath = root.get(sortKey.getAttribute());
+            final Path<Integer> idPath = root.get("id");
+            if (sortKey == ProductSortKey.ID) {
+                return direction.isAscending() ? builder.gt(idPath, lastId) : builder.lt(idPath, lastId);
+            }
+            return direction.isAscending()
+                   ? builder.or(
+                           builder.greaterThan(sortPath, lastValue),
+                           builder.and(builder.equal(sortPath, lastValue), builder.gt(idPath, lastId)))
+                   : builder.or(
+                           builder.lessThan(sortPath, lastValue),
+                           builder.and(builder.equal(sortPath, lastValue), builder.lt(idPath, lastId)));
+        };
+    }
+}
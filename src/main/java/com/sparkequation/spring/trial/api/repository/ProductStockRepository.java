@@ -0,0 +1,12 @@
+package com.sparkequation.spring.trial.api.repository;
+
+public interface ProductStockRepository {
+
+    /**
+     * Adds {@code delta} to the stock in one conditional statement, so concurrent changes can't be lost and the stock
+     * never goes below zero.
+     *
+     * @return 0 if there is no such product or it has fewer than {@code -delta} items, 1 otherwise
+     */
+    int adjustItemsInStock(int id, int delta);
+}
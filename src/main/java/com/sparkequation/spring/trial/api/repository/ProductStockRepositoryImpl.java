@@ -0,0 +1,23 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Written with plain JDBC rather than a JPQL bulk update: Hibernate drops the cached categories of every product on
+ * each bulk update of PRODUCT, and the stock of hot products changes thousands of times per second. Neither the stock
+ * nor the version is held by the second-level cache, so there is nothing to evict.
+ */
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    private final static String ADJUST_ITEMS_IN_STOCK = "UPDATE PRODUCT SET ITEMSINSTOCK = ITEMSINSTOCK + ?, "
+                                                        + "VERSION = VERSION + 1 WHERE ID = ? AND ITEMSINSTOCK + ? >= 0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int adjustItemsInStock(int id, int delta) {
+        return jdbcTemplate.update(ADJUST_ITEMS_IN_STOCK, delta, id, delta);
+    }
+}
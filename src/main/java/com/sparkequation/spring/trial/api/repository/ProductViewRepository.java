@@ -0,0 +1,29 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.ProductView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Reads {@link ProductView}s in one statement per call: the product, its brand and its categories come as one row per
+ * category, and no entity is loaded.
+ */
+public interface ProductViewRepository {
+
+    List<ProductView> findAllViews();
+
+    Optional<ProductView> findViewById(Integer id);
+
+    /**
+     * @return the views of the products of {@code ids} that exist, in id order
+     */
+    List<ProductView> findViewsByIdIn(Collection<Integer> ids);
+
+    /**
+     * Hands all products to {@code consumer} in id order, reading {@code fetchSize} rows at a time.
+     */
+    void forEachView(int fetchSize, Consumer<ProductView> consumer);
+}
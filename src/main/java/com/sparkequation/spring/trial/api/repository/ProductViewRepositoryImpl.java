@@ -0,0 +1,126 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.BrandView;
+import com.sparkequation.spring.trial.api.model.CategoryView;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class ProductViewRepositoryImpl implements ProductViewRepository {
+
+    private final static String SELECT_VIEWS = "select p.id, p.version, p.name, p.featured, p.expirationDate, "
+                                               + "p.expired, p.itemsInStock, p.receiptDate, p.rating, "
+                                               + "b.id, b.name, b.country, c.id, c.name "
+                                               + "from Product p left join p.brand b left join p.categories c ";
+    private final static String ORDER_BY = " order by p.id, c.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductView> findAllViews() {
+        return toViews(entityManager.createQuery(SELECT_VIEWS + ORDER_BY, Object[].class).getResultList());
+    }
+
+    @Override
+    public Optional<ProductView> findViewById(Integer id) {
+        final List<ProductView> views = toViews(entityManager.createQuery(
+                SELECT_VIEWS + "where p.id = :id" + ORDER_BY,
+                Object[].class
+        ).setParameter("id", id).getResultList());
+        return views.stream().findFirst();
+    }
+
+    @Override
+    public List<ProductView> findViewsByIdIn(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return toViews(entityManager.createQuery(SELECT_VIEWS + "where p.id in :ids" + ORDER_BY, Object[].class)
+                                    .setParameter("ids", ids)
+                                    .getResultList());
+    }
+
+    @Override
+    public void forEachView(int fetchSize, Consumer<ProductView> consumer) {
+        final Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults results = session.createQuery(SELECT_VIEWS + ORDER_BY, Object[].class)
+                                                .setFetchSize(fetchSize)
+                                                .setCacheMode(CacheMode.IGNORE)
+                                                .scroll(ScrollMode.FORWARD_ONLY)) {
+            final ViewAssembler assembler = new ViewAssembler(consumer);
+            while (results.next()) {
+                assembler.add(results.get());
+            }
+            assembler.finish();
+        }
+    }
+
+    private static List<ProductView> toViews(List<Object[]> rows) {
+        final List<ProductView> views = new ArrayList<>();
+        final ViewAssembler assembler = new ViewAssembler(views::add);
+        rows.forEach(assembler::add);
+        assembler.finish();
+        return views;
+    }
+
+    /**
+     * Folds the consecutive rows of a product, one per category, into its view.
+     */
+    private static class ViewAssembler {
+        private final Consumer<ProductView> consumer;
+        private Object[] product;
+        private List<CategoryView> categories;
+
+        ViewAssembler(Consumer<ProductView> consumer) {
+            this.consumer = consumer;
+        }
+
+        void add(Object[] row) {
+            if (product != null && !product[0].equals(row[0])) {
+                finish();
+            }
+            if (product == null) {
+                product = row;
+                categories = new ArrayList<>();
+            }
+            if (row[12] != null) {
+                categories.add(new CategoryView((Integer) row[12], (String) row[13]));
+            }
+        }
+
+        void finish() {
+            if (product == null) {
+                return;
+            }
+            consumer.accept(new ProductView(
+                    (Integer) product[0],
+                    (Integer) product[1],
+                    (String) product[2],
+                    (Boolean) product[3],
+                    (Date) product[4],
+                    (Boolean) product[5],
+                    (Integer) product[6],
+                    (Date) product[7],
+                    (Double) product[8],
+                    product[9] == null
+                    ? null
+                    : new BrandView((Integer) product[9], (String) product[10], (String) product[11]),
+                    categories
+            ));
+            product = null;
+        }
+    }
+}
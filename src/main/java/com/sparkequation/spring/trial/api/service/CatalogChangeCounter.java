@@ -0,0 +1,70 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Stamps the catalog with the outbox sequence up to which this node has applied the changes of the cluster. Every
+ * node at the same sequence holds the same catalog and gives it the same ETag, whenever it started, so a client can
+ * revalidate against any of them. The changes this node committed after that sequence are added to the ETag until
+ * the transport reads past them, a client sees its own writes at once.
+ * <p>
+ * A change is stamped only after its commit: a stamp read before a read of the catalog is never newer than what is
+ * read, at worst the next stamp tells a client that its copy already was up to date.
+ * <p>
+ * The last modified time is when the stamp changed, rounded up to the next second, the precision of HTTP dates:
+ * rounded down, it would be older than the changes made later in that second.
+ */
+@Component
+class CatalogChangeCounter {
+
+    private final static long SECOND = 1000;
+
+    @Autowired
+    private ProductChangeTransport productChangeTransport;
+
+    private volatile long committedSequence;
+    private volatile CatalogStamp stamp;
+
+    @PostConstruct
+    public void init() {
+        stamp = new CatalogStamp(eTag(), nextSecond());
+    }
+
+    CatalogStamp getStamp() {
+        final CatalogStamp current = stamp;
+        return current.getETag().equals(eTag()) ? current : restamp();
+    }
+
+    /**
+     * Takes the changes of this node, with their sequences, once committed.
+     */
+    synchronized void onCommitted(List<ProductChange> changes) {
+        for (ProductChange change : changes) {
+            committedSequence = Math.max(committedSequence, change.getSequence());
+        }
+    }
+
+    private synchronized CatalogStamp restamp() {
+        final String eTag = eTag();
+        if (!stamp.getETag().equals(eTag)) {
+            stamp = new CatalogStamp(eTag, Math.max(nextSecond(), stamp.getLastModified()));
+        }
+        return stamp;
+    }
+
+    private String eTag() {
+        final long applied = productChangeTransport.getAppliedSequence();
+        final long committed = committedSequence > applied ? committedSequence : 0;
+        return Long.toString(applied, Character.MAX_RADIX) + '-' + Long.toString(committed, Character.MAX_RADIX);
+    }
+
+    private static long nextSecond() {
+        return (System.currentTimeMillis() / SECOND + 1) * SECOND;
+    }
+}
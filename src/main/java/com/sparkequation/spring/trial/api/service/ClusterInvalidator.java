@@ -0,0 +1,124 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the product changes committed on the other nodes of the cluster, as the {@link ProductChangeTransport}
+ * delivers them. The changes of a batch are coalesced by product, each changed product is read once as it is now and
+ * published as a remote {@link ProductChangedEvent}, which the in-memory indexes take like a local change, and its
+ * entries in the product cache and Hibernate's category cache are evicted. A product that is gone is published as
+ * deleted. A created brand or category drops the cached brands, categories and query results.
+ * <p>
+ * Reading the products again, rather than replaying the changes, makes the outcome independent of the order and the
+ * number of times a batch is applied: the version checks of the indexes keep an older read from replacing a newer one.
+ */
+@Component
+class ClusterInvalidator {
+
+    private final static String CATEGORIES_ROLE = Product.class.getName() + ".categories";
+    private final static Set<String> REFERENCE_DATA = Arrays.stream(ReferenceDataChangedEvent.Type.values())
+                                                            .map(Enum::name)
+                                                            .collect(Collectors.toSet());
+
+    @Autowired
+    private ProductChangeTransport productChangeTransport;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        productChangeTransport.receive(this::apply);
+    }
+
+    void apply(List<ProductChange> changes) {
+        final org.hibernate.Cache secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        if (changes.stream().anyMatch(ClusterInvalidator::isReferenceData)) {
+            evictReferenceData(secondLevelCache);
+        }
+        final Set<Integer> ids = changes.stream()
+                                        .filter(change -> !isReferenceData(change))
+                                        .map(ProductChange::getProductId)
+                                        .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(id -> secondLevelCache.evictCollectionData(CATEGORIES_ROLE, id));
+        final List<Product> products = transactionTemplate.execute(
+                status -> productRepository.findByIdInOrderByIdAsc(ids)
+        );
+
+        final Cache productCache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        final Set<Integer> deleted = new LinkedHashSet<>(ids);
+        for (Product product : products) {
+            deleted.remove(product.getId());
+            if (productCache != null) {
+                productCache.evict(product.getId());
+            }
+            eventPublisher.publishEvent(ProductChangedEvent.savedRemotely(product));
+        }
+        for (Integer id : deleted) {
+            if (productCache != null) {
+                productCache.evict(id);
+            }
+            eventPublisher.publishEvent(ProductChangedEvent.deletedRemotely(id));
+        }
+    }
+
+    /**
+     * Brands and categories are only ever created, rarely: all that may hide a new one is a cached empty result of
+     * a lookup by name. Dropping every cached brand, category and query result is simpler than finding that result.
+     */
+    private void evictReferenceData(org.hibernate.Cache secondLevelCache) {
+        secondLevelCache.evictEntityData(Brand.class);
+        secondLevelCache.evictEntityData(Category.class);
+        secondLevelCache.evictQueryRegions();
+        for (String name : List.of(CacheConfig.BRANDS, CacheConfig.CATEGORIES)) {
+            final Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private static boolean isReferenceData(ProductChange change) {
+        return REFERENCE_DATA.contains(change.getChange());
+    }
+}
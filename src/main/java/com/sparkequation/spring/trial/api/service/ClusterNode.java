@@ -0,0 +1,25 @@
+package com.sparkequation.spring.trial.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * This instance among the ones sharing the database. The changes it commits are tagged with its id, so it can tell
+ * them from the changes of the other nodes. Without {@code api.cluster.node-id} a random id is taken on every start,
+ * which is what a node needs as long as nothing outside of it refers to the id.
+ */
+@Component
+class ClusterNode {
+
+    private final String id;
+
+    ClusterNode(@Value("${api.cluster.node-id:}") String id) {
+        this.id = id.isBlank() ? UUID.randomUUID().toString() : id;
+    }
+
+    String getId() {
+        return id;
+    }
+}
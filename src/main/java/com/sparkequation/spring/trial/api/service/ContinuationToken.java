@@ -0,0 +1,122 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.repository.ProductSortKey;
+import com.sparkequation.spring.trial.api.service.exception.InvalidContinuationTokenException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors handed out to clients, Base64 encoded: the last seen product id for plain listings,
+ * the sort order, last sort value and last id for searches, and the last expiration day and id for expiring products.
+ */
+final class ContinuationToken {
+
+    private final static String TOKEN_PREFIX = "id:";
+    private final static String SEARCH_TOKEN_PREFIX = "search:";
+    private final static String EXPIRING_TOKEN_PREFIX = "expiring:";
+    private final static String SEPARATOR = ":";
+    private final static String INVALID_TOKEN = "Continuation token '%s' is invalid.";
+
+    private ContinuationToken() {
+    }
+
+    static String encode(int lastId) {
+        return toBase64(TOKEN_PREFIX + lastId);
+    }
+
+    static int decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        try {
+            final String decoded = fromBase64(token);
+            if (!decoded.startsWith(TOKEN_PREFIX)) {
+                throw new IllegalArgumentException("Unknown token format");
+            }
+            return Integer.parseInt(decoded.substring(TOKEN_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidContinuationTokenException(String.format(INVALID_TOKEN, token), e);
+        }
+    }
+
+    static String encode(ProductSortKey sortKey, Sort.Direction direction, Object lastValue, int lastId) {
+        return toBase64(SEARCH_TOKEN_PREFIX + sortKey + SEPARATOR + direction + SEPARATOR + lastValue
+                        + SEPARATOR + lastId);
+    }
+
+    /**
+     * Returns the cursor of a search token, or {@code null} for the first page. A token issued for another sort
+     * order is rejected, since seeking with it would skip or repeat rows.
+     */
+    static Cursor decode(String token, ProductSortKey sortKey, Sort.Direction direction) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            final String[] parts = fromBase64(token).split(SEPARATOR);
+            if (parts.length != 5
+                || !(parts[0] + SEPARATOR).equals(SEARCH_TOKEN_PREFIX)
+                || ProductSortKey.valueOf(parts[1]) != sortKey
+                || Sort.Direction.valueOf(parts[2]) != direction) {
+                throw new IllegalArgumentException("Token doesn't match the requested order");
+            }
+            final Comparable<?> lastValue = sortKey == ProductSortKey.RATING
+                                            ? Double.valueOf(parts[3])
+                                            : Integer.valueOf(parts[3]);
+            return new Cursor(lastValue, Integer.parseInt(parts[4]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidContinuationTokenException(String.format(INVALID_TOKEN, token), e);
+        }
+    }
+
+    static String encodeExpiring(long lastDay, int lastId) {
+        return toBase64(EXPIRING_TOKEN_PREFIX + lastDay + SEPARATOR + lastId);
+    }
+
+    /**
+     * Returns the cursor of an expiring products token, with the epoch day as the last value, or {@code null} for
+     * the first page.
+     */
+    static Cursor decodeExpiring(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            final String[] parts = fromBase64(token).split(SEPARATOR);
+            if (parts.length != 3 || !(parts[0] + SEPARATOR).equals(EXPIRING_TOKEN_PREFIX)) {
+                throw new IllegalArgumentException("Unknown token format");
+            }
+            return new Cursor(Long.valueOf(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidContinuationTokenException(String.format(INVALID_TOKEN, token), e);
+        }
+    }
+
+    private static String toBase64(String token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String fromBase64(String token) {
+        return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+    }
+
+    static class Cursor {
+        private final Comparable<?> lastValue;
+        private final int lastId;
+
+        Cursor(Comparable<?> lastValue, int lastId) {
+            this.lastValue = lastValue;
+            this.lastId = lastId;
+        }
+
+        Comparable<?> getLastValue() {
+            return lastValue;
+        }
+
+        int getLastId() {
+            return lastId;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import com.sparkequation.spring.trial.api.repository.ProductSortKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The featured products ordered by rating, best first, kept in memory so listing them never queries the database.
+ * Loaded once at startup and then maintained from the {@link ProductChangedEvent}s of committed changes.
+ * <p>
+ * The order and the continuation tokens are the ones of a search sorted by rating descending. Changes are applied
+ * one at a time while pages are read without locking, so a page read during a change may miss the changed product.
+ * Products that drop out of the list leave a {@link ProductTombstones tombstone}.
+ */
+@Component
+class FeaturedProductIndex {
+
+    private final NavigableSet<Entry> byRating = new ConcurrentSkipListSet<>();
+    private final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+    private final ProductTombstones tombstones = new ProductTombstones();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @PostConstruct
+    void rebuild() {
+        synchronized (this) {
+            byRating.clear();
+            byId.clear();
+            productRepository.findFeatured(Product.FEATURED_RATING).stream().map(ProductView::of).forEach(this::put);
+        }
+    }
+
+    ProductPage getPage(String continuationToken, int size) {
+        final ContinuationToken.Cursor cursor = ContinuationToken.decode(
+                continuationToken,
+                ProductSortKey.RATING,
+                Sort.Direction.DESC
+        );
+        final Iterator<Entry> entries = cursor == null
+                                        ? byRating.iterator()
+                                        : byRating.tailSet(new Entry(
+                                                (Double) cursor.getLastValue(),
+                                                cursor.getLastId(),
+                                                null
+                                        ), false).iterator();
+        final List<ProductView> products = new ArrayList<>(Math.min(size, byId.size()));
+        Entry last = null;
+        while (products.size() < size && entries.hasNext()) {
+            last = entries.next();
+            products.add(last.product);
+        }
+        if (last == null || !entries.hasNext()) {
+            return new ProductPage(products, null);
+        }
+        return new ProductPage(
+                products,
+                ContinuationToken.encode(ProductSortKey.RATING, Sort.Direction.DESC, last.rating, last.id)
+        );
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getChange()) {
+            case SAVED:
+                put(ProductView.of(event.getProduct()));
+                break;
+            case STOCK:
+            case EXPIRED:
+                // Neither makes a product featured, only the ones already listed have to be read again. The expired
+                // ones are read for the version they expired at.
+                if (byId.containsKey(event.getProductId())) {
+                    productRepository.findViewById(event.getProductId())
+                                     .ifPresentOrElse(this::put, () -> delete(event.getProductId()));
+                }
+                break;
+            case DELETED:
+                delete(event.getProductId());
+                break;
+        }
+    }
+
+    private synchronized void put(ProductView product) {
+        if (tombstones.isRemoved(product.getId(), product.getVersion())) {
+            return;
+        }
+        final Entry current = byId.get(product.getId());
+        if (current != null) {
+            // Listeners of concurrent commits may run in any order, an older version must not replace a newer one.
+            if (current.product.getVersion() > product.getVersion()) {
+                return;
+            }
+            byRating.remove(current);
+        }
+        if (isFeatured(product)) {
+            final Entry entry = new Entry(product.getRating(), product.getId(), product);
+            byRating.add(entry);
+            byId.put(entry.id, entry);
+        } else {
+            byId.remove(product.getId());
+            tombstones.removed(product.getId(), product.getVersion());
+        }
+    }
+
+    private synchronized void delete(int id) {
+        tombstones.deleted(id);
+        final Entry current = byId.remove(id);
+        if (current != null) {
+            byRating.remove(current);
+        }
+    }
+
+    /**
+     * The stored flag alone isn't enough: a product sent with its rating after its flag is stored as sent.
+     * Expired products aren't listed.
+     */
+    private static boolean isFeatured(ProductView product) {
+        return (product.isFeatured() || product.getRating() > Product.FEATURED_RATING) && !product.isExpired();
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final static Comparator<Entry> ORDER = Comparator.comparingDouble((Entry entry) -> entry.rating)
+                                                                 .thenComparingInt(entry -> entry.id)
+                                                                 .reversed();
+
+        private final double rating;
+        private final int id;
+        private final ProductView product;
+
+        Entry(double rating, int id, ProductView product) {
+            this.rating = rating;
+            this.id = id;
+            this.product = product;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
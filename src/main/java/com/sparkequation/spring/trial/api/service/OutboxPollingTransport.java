@@ -0,0 +1,101 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.repository.ProductChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The transport of {@code api.cluster.transport=outbox}: the outbox rows are the messages, appended in the transaction
+ * of each change, and every node polls them after the last sequence it has seen. A change of another node is usually
+ * applied here within a poll interval of its commit, plus the time the poll itself takes. Behind a sequence whose
+ * transaction hasn't committed yet it waits for that commit, or for {@code api.product.changes.gap-timeout} if it
+ * never does. A failed poll or batch is tried again from the same sequence.
+ * <p>
+ * Polls on a thread of its own, so a slow poll or a busy task scheduler doesn't delay the other.
+ * <p>
+ * Starts from the last sequence when the node starts, before the in-memory indexes are loaded as long as they are
+ * loaded later: a change committed in between is read by both, and applied again, which is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = OutboxPollingTransport.TRANSPORT, havingValue = "outbox", matchIfMissing = true)
+class OutboxPollingTransport implements ProductChangeTransport {
+
+    final static String TRANSPORT = "api.cluster.transport";
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    @Value("${api.cluster.batch-size:500}")
+    private int batchSize;
+
+    @Value("${api.cluster.poll-interval:500}")
+    private long pollInterval;
+
+    private volatile Consumer<List<ProductChange>> receiver;
+    private volatile long lastSequence;
+    private ThreadPoolTaskScheduler poller;
+
+    @PostConstruct
+    public void init() {
+        lastSequence = productChangeService.getLastSequence();
+        poller = new ThreadPoolTaskScheduler();
+        poller.setThreadNamePrefix("outbox-poller-");
+        poller.initialize();
+        poller.scheduleWithFixedDelay(this::poll, pollInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdown();
+    }
+
+    @Override
+    public void send(List<ProductChange> changes) {
+        // Already in the outbox.
+    }
+
+    @Override
+    public void receive(Consumer<List<ProductChange>> receiver) {
+        this.receiver = receiver;
+    }
+
+    @Override
+    public long getAppliedSequence() {
+        return lastSequence;
+    }
+
+    public synchronized void poll() {
+        if (receiver == null) {
+            return;
+        }
+        List<ProductChange> changes;
+        do {
+            changes = productChangeRepository.findAfter(lastSequence, batchSize);
+            final List<ProductChange> others = changes.stream()
+                                                      .filter(change -> !clusterNode.getId().equals(change.getOrigin()))
+                                                      .collect(Collectors.toList());
+            if (!others.isEmpty()) {
+                receiver.accept(others);
+            }
+            if (!changes.isEmpty()) {
+                lastSequence = changes.get(changes.size() - 1).getSequence();
+            }
+        } while (changes.size() == batchSize);
+    }
+}
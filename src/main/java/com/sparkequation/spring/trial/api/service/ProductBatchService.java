@@ -0,0 +1,30 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBatchResult;
+import com.sparkequation.spring.trial.api.model.ProductBulkDeleteProgress;
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ProductBatchService {
+    ProductBatchResult addProducts(List<Product> products);
+
+    ProductBatchResult addProducts(InputStream products) throws IOException;
+
+    /**
+     * Deletes the selected products a chunk at a time, one transaction per chunk, and moves them to the archive
+     * first if {@code archive}. A failure stops the delete, the chunks committed before it stay deleted.
+     *
+     * @param progress gets the totals after every chunk that deleted products, and once more when the delete is done
+     * @return the totals of the whole delete
+     */
+    ProductBulkDeleteProgress deleteProducts(
+            ProductSelection selection,
+            boolean archive,
+            Consumer<ProductBulkDeleteProgress> progress
+    );
+}
@@ -0,0 +1,422 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.config.MetricsConfig;
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBatchError;
+import com.sparkequation.spring.trial.api.model.ProductBatchResult;
+import com.sparkequation.spring.trial.api.model.ProductBulkDeleteProgress;
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts products in chunks, one transaction per chunk, so the JDBC driver sees
+ * {@code hibernate.jdbc.batch_size} inserts per round trip. A chunk that fails is replayed item by item,
+ * so one bad product costs its own row and not the rest of the upload.
+ * <p>
+ * Streamed uploads are parsed and validated one product at a time on the calling thread while a writer thread
+ * persists full chunks. The queue between them is bounded, so a slow database stops the parser, and the parser
+ * stops reading the request: memory depends on the chunk size and not on the upload size.
+ * <p>
+ * Bulk deletes lock, archive and delete a chunk of products with a handful of set-based statements per transaction,
+ * whatever the chunk size. Each chunk holds its locks only until it commits, so the writers of the products of a
+ * chunk wait for one chunk at most, and products are always locked in id order.
+ */
+@Service
+public class ProductBatchServiceImpl implements ProductBatchService {
+
+    private final static String MALFORMED_JSON = "Malformed JSON, the rest of the upload was skipped: %s";
+    private final static String INGEST_INTERRUPTED = "Upload interrupted";
+    private final static List<PendingProduct> END_OF_UPLOAD = Collections.emptyList();
+    private final static String CATEGORIES_ROLE = Product.class.getName() + ".categories";
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${api.product.batch.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${api.product.batch.queue-capacity:2}")
+    private int queueCapacity;
+
+    @Value("${api.product.batch.delete-chunk-size:500}")
+    private int deleteChunkSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public ProductBatchResult addProducts(List<Product> products) {
+        final List<ProductBatchError> failures = new ArrayList<>();
+        final ChunkWriter writer = new ChunkWriter(failures);
+        List<PendingProduct> chunk = new ArrayList<>(chunkSize);
+        int inserted = 0;
+        for (int index = 0; index < products.size(); index++) {
+            final PendingProduct pending = validate(index, products.get(index), failures);
+            if (pending == null) {
+                continue;
+            }
+            chunk.add(pending);
+            if (chunk.size() == chunkSize) {
+                inserted += writer.write(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        inserted += writer.write(chunk);
+        return result(products.size(), inserted, failures);
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public ProductBatchResult addProducts(InputStream products) throws IOException {
+        final List<ProductBatchError> failures = Collections.synchronizedList(new ArrayList<>());
+        final BlockingQueue<List<PendingProduct>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final ChunkWriter writer = new ChunkWriter(failures);
+        final CompletableFuture<Integer> inserted = CompletableFuture.supplyAsync(() -> writer.drain(queue), taskExecutor);
+        int received = 0;
+        try (MappingIterator<Product> iterator = objectMapper.readerFor(Product.class).readValues(products)) {
+            List<PendingProduct> chunk = new ArrayList<>(chunkSize);
+            while (hasNext(iterator, received, failures)) {
+                final int index = received++;
+                final Product product;
+                try {
+                    product = iterator.nextValue();
+                } catch (JsonParseException e) {
+                    failures.add(new ProductBatchError(index, List.of(String.format(MALFORMED_JSON, e.getMessage()))));
+                    break;
+                } catch (JsonMappingException e) {
+                    failures.add(new ProductBatchError(index, List.of(e.getOriginalMessage())));
+                    continue;
+                }
+                final PendingProduct pending = validate(index, product, failures);
+                if (pending == null) {
+                    continue;
+                }
+                chunk.add(pending);
+                if (chunk.size() == chunkSize) {
+                    enqueue(queue, chunk, inserted);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                enqueue(queue, chunk, inserted);
+            }
+        } finally {
+            enqueue(queue, END_OF_UPLOAD, inserted);
+        }
+        return result(received, inserted.join(), failures);
+    }
+
+    /**
+     * Walks the selection in id order: requested ids a chunk at a time, the other criteria by keyset. Products that
+     * join a brand, a category or the cutoff behind the last chunk while the delete runs are left alone.
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public ProductBulkDeleteProgress deleteProducts(
+            ProductSelection selection,
+            boolean archive,
+            Consumer<ProductBulkDeleteProgress> progress
+    ) {
+        final List<Integer> ids = selection.getIds() == null
+                                  ? null
+                                  : selection.getIds().stream().distinct().sorted().collect(Collectors.toList());
+        final Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        final org.hibernate.Cache secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        int chunks = 0;
+        int deleted = 0;
+        int lastId = 0;
+        int nextIndex = 0;
+        while (ids == null || nextIndex < ids.size()) {
+            final List<Integer> requested = ids == null
+                                            ? null
+                                            : ids.subList(nextIndex, Math.min(nextIndex + deleteChunkSize, ids.size()));
+            final int afterId = lastId;
+            final List<Integer> chunk = transactionTemplate.execute(status -> {
+                final List<Integer> locked = requested == null
+                                             ? productRepository.lockIds(selection, afterId, deleteChunkSize)
+                                             : productRepository.lockIds(requested);
+                if (!locked.isEmpty()) {
+                    if (archive) {
+                        productRepository.archive(locked, new Date());
+                    }
+                    productRepository.delete(locked);
+                    locked.forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.deleted(id)));
+                }
+                return locked;
+            });
+            if (requested != null) {
+                nextIndex += requested.size();
+            } else if (chunk.isEmpty()) {
+                break;
+            } else {
+                lastId = chunk.get(chunk.size() - 1);
+            }
+            if (chunk.isEmpty()) {
+                continue;
+            }
+            for (Integer id : chunk) {
+                if (products != null) {
+                    products.evict(id);
+                }
+                secondLevelCache.evictCollectionData(CATEGORIES_ROLE, id);
+            }
+            chunks++;
+            deleted += chunk.size();
+            progress.accept(new ProductBulkDeleteProgress(chunks, deleted, archive ? deleted : 0, false));
+        }
+        final ProductBulkDeleteProgress done = new ProductBulkDeleteProgress(
+                chunks,
+                deleted,
+                archive ? deleted : 0,
+                true
+        );
+        progress.accept(done);
+        return done;
+    }
+
+    private boolean hasNext(MappingIterator<Product> iterator, int index, List<ProductBatchError> failures) {
+        try {
+            return iterator.hasNextValue();
+        } catch (IOException e) {
+            failures.add(new ProductBatchError(index, List.of(String.format(MALFORMED_JSON, e.getMessage()))));
+            return false;
+        }
+    }
+
+    private void enqueue(
+            BlockingQueue<List<PendingProduct>> queue,
+            List<PendingProduct> chunk,
+            CompletableFuture<Integer> writer
+    ) {
+        try {
+            // Blocks while the writer is behind, unless the writer has died and will never take it.
+            while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(INGEST_INTERRUPTED, e);
+        }
+    }
+
+    private PendingProduct validate(int index, Product product, List<ProductBatchError> failures) {
+        final Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return new PendingProduct(index, product);
+        }
+        failures.add(new ProductBatchError(
+                index,
+                violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.toList())
+        ));
+        return null;
+    }
+
+    private static ProductBatchResult result(int received, int inserted, List<ProductBatchError> failures) {
+        final List<ProductBatchError> sortedFailures = new ArrayList<>(failures);
+        sortedFailures.sort(Comparator.comparingInt(ProductBatchError::getIndex));
+        return new ProductBatchResult(received, inserted, sortedFailures);
+    }
+
+    private static Object brandKey(Brand brand) {
+        return brand.getId() > 0 ? brand.getId() : Arrays.asList(brand.getName(), brand.getCountry());
+    }
+
+    private static Object categoryKey(Category category) {
+        return category.getId() > 0 ? category.getId() : category.getName();
+    }
+
+    /**
+     * Persists the chunks of one upload and remembers the brands and categories it already resolved.
+     * Only ever used by one thread at a time.
+     */
+    private class ChunkWriter {
+        private final List<ProductBatchError> failures;
+        private final Map<Object, Brand> brands = new HashMap<>();
+        private final Map<Object, Category> categories = new HashMap<>();
+
+        ChunkWriter(List<ProductBatchError> failures) {
+            this.failures = failures;
+        }
+
+        int drain(BlockingQueue<List<PendingProduct>> queue) {
+            int inserted = 0;
+            try {
+                List<PendingProduct> chunk;
+                while ((chunk = queue.take()) != END_OF_UPLOAD) {
+                    inserted += write(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(INGEST_INTERRUPTED, e);
+            }
+            return inserted;
+        }
+
+        int write(List<PendingProduct> chunk) {
+            if (chunk.isEmpty()) {
+                return 0;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    chunk.forEach(this::persist);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                return chunk.size();
+            } catch (RuntimeException e) {
+                // References created by the rolled back transaction don't exist, forget them before the replay.
+                forgetReferences();
+                int inserted = 0;
+                for (PendingProduct pending : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> persist(pending));
+                        inserted++;
+                    } catch (RuntimeException itemException) {
+                        forgetReferences();
+                        failures.add(new ProductBatchError(
+                                pending.index,
+                                Collections.singletonList(String.valueOf(itemException.getMessage()))
+                        ));
+                    }
+                }
+                return inserted;
+            }
+        }
+
+        private void persist(PendingProduct pending) {
+            pending.reset();
+            final Product product = pending.product;
+            product.setBrand(brands.computeIfAbsent(
+                    brandKey(pending.brand),
+                    key -> referenceDataService.resolveBrand(pending.brand)
+            ));
+            final Set<Category> resolvedCategories = new HashSet<>();
+            for (Category category : pending.categories) {
+                resolvedCategories.add(categories.computeIfAbsent(
+                        categoryKey(category),
+                        key -> referenceDataService.resolveCategories(Collections.singleton(category))
+                                                   .iterator()
+                                                   .next()
+                ));
+            }
+            product.setCategories(resolvedCategories);
+            entityManager.persist(product);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        }
+
+        private void forgetReferences() {
+            brands.clear();
+            categories.clear();
+        }
+    }
+
+    /**
+     * A validated product with the references it was sent with. Persisting assigns ids to the product and to
+     * references created on the fly, so a replay after a rollback starts again from the original ids.
+     */
+    private static class PendingProduct {
+        private final int index;
+        private final Product product;
+        private final Brand brand;
+        private final int brandId;
+        private final List<Category> categories;
+        private final int[] categoryIds;
+
+        PendingProduct(int index, Product product) {
+            this.index = index;
+            this.product = product;
+            this.brand = product.getBrand();
+            this.brandId = brand.getId();
+            this.categories = new ArrayList<>(product.getCategories());
+            this.categoryIds = categories.stream().mapToInt(Category::getId).toArray();
+        }
+
+        void reset() {
+            product.setId(0);
+            brand.setId(brandId);
+            for (int i = 0; i < categories.size(); i++) {
+                categories.get(i).setId(categoryIds[i]);
+            }
+        }
+    }
+}
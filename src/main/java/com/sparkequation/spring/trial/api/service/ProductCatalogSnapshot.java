@@ -0,0 +1,715 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.BrandView;
+import com.sparkequation.spring.trial.api.model.CategoryView;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import com.sparkequation.spring.trial.api.repository.ProductSortKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * A copy of the whole catalog held in columns of primitives, one array per field and one row per product, from which
+ * {@link SnapshotProductService} serves the reads without the database. Only the rows asked for are turned into
+ * {@link ProductView}s; lookups, listings and filters work on the columns, so a filter scanning every product
+ * allocates nothing per product it rejects.
+ * <p>
+ * Rows are kept in id order, which keyset pages by id seek with a binary search, and found by id through an
+ * open-addressing map of ids to rows. Brands and categories are held once each and referenced by a code. Dates are
+ * epoch milliseconds, {@link #NO_DATE} for none.
+ * <p>
+ * Loaded at startup and then maintained from the {@link ProductChangedEvent}s of committed changes, like the
+ * {@link FeaturedProductIndex}. Rows are updated in place under a write lock, so a write waits for the reads in
+ * progress, and a read sees every change committed before it started. Deleted products leave a
+ * {@link ProductTombstones tombstone}.
+ */
+@Component
+@ConditionalOnProperty(name = ProductCatalogSnapshot.READ_MODE, havingValue = "snapshot")
+class ProductCatalogSnapshot {
+
+    /**
+     * {@code database}, the default, or {@code snapshot} to serve the product reads from this snapshot.
+     */
+    final static String READ_MODE = "api.product.read-mode";
+
+    private final static long NO_DATE = Long.MIN_VALUE;
+    private final static int NO_BRAND = -1;
+    private final static byte FEATURED = 1;
+    private final static byte EXPIRED = 2;
+    private final static byte DELETED = 4;
+    private final static int INITIAL_ROWS = 1024;
+    /**
+     * Deleted rows are only flagged, and dropped once there are this many and they are a quarter of the rows.
+     */
+    private final static int COMPACTION_THRESHOLD = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ProductTombstones tombstones = new ProductTombstones();
+
+    private int rows;
+    private int live;
+    private int[] ids;
+    private int[] versions;
+    private String[] names;
+    private byte[] flags;
+    private long[] expirationDates;
+    private int[] itemsInStock;
+    private long[] receiptDates;
+    private double[] ratings;
+    private int[] brands;
+    private int[][] categories;
+    private RowIndex rowsById;
+
+    private final Dictionary<BrandView> brandDictionary = new Dictionary<>(BrandView[]::new);
+    private final Dictionary<CategoryView> categoryDictionary = new Dictionary<>(CategoryView[]::new);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${api.product.stream.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Built once the context is refreshed, before the server takes requests: while the beans are being created the
+     * data.sql script may not have run yet.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    void rebuild() {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        lock.writeLock().lock();
+        try {
+            rows = 0;
+            live = 0;
+            allocate(INITIAL_ROWS);
+            rowsById = new RowIndex(INITIAL_ROWS);
+            // Scrolled rather than listed, so the views of the whole catalog are never held at once.
+            transactionTemplate.executeWithoutResult(status -> productRepository.forEachView(fetchSize, this::put));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    ProductView getView(int id) {
+        lock.readLock().lock();
+        try {
+            final int row = rowsById.get(id);
+            return row < 0 ? null : view(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Integer getVersion(int id) {
+        lock.readLock().lock();
+        try {
+            final int row = rowsById.get(id);
+            return row < 0 ? null : versions[row];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the views of the products of {@code ids} that exist, in no particular order
+     */
+    List<ProductView> getViews(Collection<Integer> ids) {
+        final List<ProductView> views = new ArrayList<>(ids.size());
+        lock.readLock().lock();
+        try {
+            for (Integer id : ids) {
+                final int row = rowsById.get(id);
+                if (row >= 0) {
+                    views.add(view(row));
+                }
+            }
+            return views;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} products with ids greater than {@code lastId}, in id order
+     */
+    List<ProductView> getViewsAfter(int lastId, int limit) {
+        lock.readLock().lock();
+        try {
+            final List<ProductView> views = new ArrayList<>(Math.min(limit, live));
+            for (int row = firstRowAfter(lastId); row < rows && views.size() < limit; row++) {
+                if ((flags[row] & DELETED) == 0) {
+                    views.add(view(row));
+                }
+            }
+            return views;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The page of a product search, with the same order and continuation tokens as the search of the database.
+     */
+    ProductPage search(ProductFilter filter, ProductSortKey sortKey, Sort.Direction direction, int size) {
+        final ContinuationToken.Cursor cursor = ContinuationToken.decode(filter.getToken(), sortKey, direction);
+        lock.readLock().lock();
+        try {
+            final Criteria criteria = new Criteria(filter);
+            final int[] found = sortKey == ProductSortKey.ID
+                                ? scanById(criteria, direction, cursor, size + 1)
+                                : scanBySortKey(criteria, sortKey, direction, cursor, size + 1);
+            final boolean hasNext = found.length > size;
+            final int pageSize = hasNext ? size : found.length;
+            final List<ProductView> products = new ArrayList<>(pageSize);
+            for (int i = 0; i < pageSize; i++) {
+                products.add(view(found[i]));
+            }
+            if (!hasNext) {
+                return new ProductPage(products, null);
+            }
+            final int last = found[size - 1];
+            final Object lastValue = sortKey == ProductSortKey.RATING
+                                     ? (Object) ratings[last]
+                                     : (Object) (sortKey == ProductSortKey.ID ? ids[last] : itemsInStock[last]);
+            return new ProductPage(products, ContinuationToken.encode(sortKey, direction, lastValue, ids[last]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getChange()) {
+            case SAVED:
+                putLocked(ProductView.of(event.getProduct()));
+                break;
+            case STOCK:
+            case EXPIRED:
+                // Changed by a statement that didn't load the product, the row has to be read again.
+                productRepository.findViewById(event.getProductId())
+                                 .ifPresentOrElse(this::putLocked, () -> deleteLocked(event.getProductId()));
+                break;
+            case DELETED:
+                deleteLocked(event.getProductId());
+                break;
+        }
+    }
+
+    /**
+     * Rows in id order from the cursor on, stopping at {@code limit} matches.
+     */
+    private int[] scanById(Criteria criteria, Sort.Direction direction, ContinuationToken.Cursor cursor, int limit) {
+        final int[] found = new int[limit];
+        int count = 0;
+        if (direction.isAscending()) {
+            for (int row = cursor == null ? 0 : firstRowAfter(cursor.getLastId()); row < rows && count < limit;
+                 row++) {
+                if (criteria.matches(row)) {
+                    found[count++] = row;
+                }
+            }
+        } else {
+            for (int row = (cursor == null ? rows : firstRowAfter(cursor.getLastId() - 1)) - 1;
+                 row >= 0 && count < limit; row--) {
+                if (criteria.matches(row)) {
+                    found[count++] = row;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Every row is checked; only the first {@code limit} matches in the requested order are kept, the worst of them
+     * on top of the heap, so once it is full most rows are dismissed by comparing their sort value with the worst.
+     */
+    private int[] scanBySortKey(
+            Criteria criteria,
+            ProductSortKey sortKey,
+            Sort.Direction direction,
+            ContinuationToken.Cursor cursor,
+            int limit
+    ) {
+        final double[] values = sortKey == ProductSortKey.RATING ? ratings : null;
+        final Comparator<Integer> order = (left, right) -> compareRows(values, left, right, direction);
+        final double lastValue = cursor == null ? 0 : ((Number) cursor.getLastValue()).doubleValue();
+        final PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, order.reversed());
+        final boolean ascending = direction.isAscending();
+        double worst = 0;
+        for (int i = 0; i < rows; i++) {
+            // Rows in the order of the ids requested, so a row tied with the worst kept one comes after it and only a
+            // better sort value displaces it.
+            final int row = ascending ? i : rows - 1 - i;
+            final double value = sortValue(values, row);
+            if (cursor != null && compare(value, ids[row], lastValue, cursor.getLastId(), direction) <= 0) {
+                continue;
+            }
+            if (best.size() == limit && (ascending ? value >= worst : value <= worst)) {
+                continue;
+            }
+            if (criteria.matches(row)) {
+                best.add(row);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+                worst = sortValue(values, best.peek());
+            }
+        }
+        final int[] found = new int[best.size()];
+        for (int i = found.length - 1; i >= 0; i--) {
+            found[i] = best.poll();
+        }
+        return found;
+    }
+
+    private int compareRows(double[] values, int row, int other, Sort.Direction direction) {
+        return compare(sortValue(values, row), ids[row], sortValue(values, other), ids[other], direction);
+    }
+
+    private double sortValue(double[] values, int row) {
+        return values == null ? itemsInStock[row] : values[row];
+    }
+
+    private static int compare(double value, int id, double otherValue, int otherId, Sort.Direction direction) {
+        final int comparison = value == otherValue ? Integer.compare(id, otherId) : Double.compare(value, otherValue);
+        return direction.isAscending() ? comparison : -comparison;
+    }
+
+    private int firstRowAfter(int id) {
+        final int row = Arrays.binarySearch(ids, 0, rows, id);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    private ProductView view(int row) {
+        final int[] codes = categories[row];
+        final CategoryView[] categoryViews = new CategoryView[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            categoryViews[i] = categoryDictionary.get(codes[i]);
+        }
+        return new ProductView(
+                ids[row],
+                versions[row],
+                names[row],
+                (flags[row] & FEATURED) != 0,
+                toDate(expirationDates[row]),
+                (flags[row] & EXPIRED) != 0,
+                itemsInStock[row],
+                toDate(receiptDates[row]),
+                ratings[row],
+                brands[row] == NO_BRAND ? null : brandDictionary.get(brands[row]),
+                List.of(categoryViews)
+        );
+    }
+
+    private void putLocked(ProductView product) {
+        lock.writeLock().lock();
+        try {
+            put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void deleteLocked(int id) {
+        lock.writeLock().lock();
+        try {
+            tombstones.deleted(id);
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(ProductView product) {
+        if (tombstones.isRemoved(product.getId(), product.getVersion())) {
+            return;
+        }
+        int row = rowsById.get(product.getId());
+        if (row >= 0) {
+            // Listeners of concurrent commits may run in any order, an older version must not replace a newer one.
+            if (versions[row] > product.getVersion()) {
+                return;
+            }
+        } else if (rows == 0 || product.getId() > ids[rows - 1]) {
+            row = append();
+        } else {
+            row = insert(product.getId());
+        }
+        write(row, product);
+    }
+
+    private int append() {
+        if (rows == ids.length) {
+            allocate(rows + (rows >> 1));
+        }
+        live++;
+        return rows++;
+    }
+
+    /**
+     * Ids come from a sequence, so a product is only inserted before others when a transaction that took a smaller id
+     * commits after one that took a larger id. The rows after it are shifted, which is rare enough to be linear.
+     */
+    private int insert(int id) {
+        final int position = Arrays.binarySearch(ids, 0, rows, id);
+        live++;
+        if (position >= 0) {
+            // The deleted row of the same id is taken over.
+            return position;
+        }
+        final int row = -position - 1;
+        if (rows == ids.length) {
+            allocate(rows + (rows >> 1));
+        }
+        final int moved = rows - row;
+        System.arraycopy(ids, row, ids, row + 1, moved);
+        System.arraycopy(versions, row, versions, row + 1, moved);
+        System.arraycopy(names, row, names, row + 1, moved);
+        System.arraycopy(flags, row, flags, row + 1, moved);
+        System.arraycopy(expirationDates, row, expirationDates, row + 1, moved);
+        System.arraycopy(itemsInStock, row, itemsInStock, row + 1, moved);
+        System.arraycopy(receiptDates, row, receiptDates, row + 1, moved);
+        System.arraycopy(ratings, row, ratings, row + 1, moved);
+        System.arraycopy(brands, row, brands, row + 1, moved);
+        System.arraycopy(categories, row, categories, row + 1, moved);
+        rows++;
+        for (int shifted = row + 1; shifted < rows; shifted++) {
+            if ((flags[shifted] & DELETED) == 0) {
+                rowsById.put(ids[shifted], shifted);
+            }
+        }
+        return row;
+    }
+
+    private void write(int row, ProductView product) {
+        ids[row] = product.getId();
+        versions[row] = product.getVersion();
+        names[row] = product.getName();
+        flags[row] = (byte) ((product.isFeatured() ? FEATURED : 0) | (product.isExpired() ? EXPIRED : 0));
+        expirationDates[row] = toMillis(product.getExpirationDate());
+        itemsInStock[row] = product.getItemsInStock();
+        receiptDates[row] = toMillis(product.getReceiptDate());
+        ratings[row] = product.getRating();
+        brands[row] = product.getBrand() == null
+                      ? NO_BRAND
+                      : brandDictionary.code(product.getBrand().getId(), product.getBrand());
+        final List<CategoryView> productCategories = product.getCategories() == null
+                                                     ? Collections.emptyList()
+                                                     : product.getCategories();
+        final int[] codes = new int[productCategories.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = categoryDictionary.code(productCategories.get(i).getId(), productCategories.get(i));
+        }
+        categories[row] = codes;
+        rowsById.put(product.getId(), row);
+    }
+
+    private void remove(int id) {
+        final int row = rowsById.remove(id);
+        if (row < 0) {
+            return;
+        }
+        flags[row] = DELETED;
+        names[row] = null;
+        categories[row] = null;
+        live--;
+        if (rows - live >= COMPACTION_THRESHOLD && rows - live >= rows / 4) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int row = 0; row < rows; row++) {
+            if ((flags[row] & DELETED) != 0) {
+                continue;
+            }
+            ids[kept] = ids[row];
+            versions[kept] = versions[row];
+            names[kept] = names[row];
+            flags[kept] = flags[row];
+            expirationDates[kept] = expirationDates[row];
+            itemsInStock[kept] = itemsInStock[row];
+            receiptDates[kept] = receiptDates[row];
+            ratings[kept] = ratings[row];
+            brands[kept] = brands[row];
+            categories[kept] = categories[row];
+            kept++;
+        }
+        Arrays.fill(names, kept, rows, null);
+        Arrays.fill(categories, kept, rows, null);
+        rows = kept;
+        rowsById = new RowIndex(rows);
+        for (int row = 0; row < rows; row++) {
+            rowsById.put(ids[row], row);
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = ids == null ? new int[capacity] : Arrays.copyOf(ids, capacity);
+        versions = versions == null ? new int[capacity] : Arrays.copyOf(versions, capacity);
+        names = names == null ? new String[capacity] : Arrays.copyOf(names, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+        expirationDates = expirationDates == null ? new long[capacity] : Arrays.copyOf(expirationDates, capacity);
+        itemsInStock = itemsInStock == null ? new int[capacity] : Arrays.copyOf(itemsInStock, capacity);
+        receiptDates = receiptDates == null ? new long[capacity] : Arrays.copyOf(receiptDates, capacity);
+        ratings = ratings == null ? new double[capacity] : Arrays.copyOf(ratings, capacity);
+        brands = brands == null ? new int[capacity] : Arrays.copyOf(brands, capacity);
+        categories = categories == null ? new int[capacity][] : Arrays.copyOf(categories, capacity);
+    }
+
+    private static long toMillis(Date date) {
+        return date == null ? NO_DATE : date.getTime();
+    }
+
+    private static Date toDate(long millis) {
+        return millis == NO_DATE ? null : new Date(millis);
+    }
+
+    /**
+     * A product filter turned into primitives once, then checked against the columns of each row. Bounds that
+     * weren't given are open, except that a date bound leaves out the products without that date, as in SQL.
+     */
+    private class Criteria {
+        private final boolean brandFiltered;
+        private final int brand;
+        private final int[] categoryCodes;
+        private final int featured;
+        private final double minRating;
+        private final double maxRating;
+        private final boolean expirationBounded;
+        private final long expiresFrom;
+        private final long expiresTo;
+        private final boolean receiptBounded;
+        private final long receivedFrom;
+        private final long receivedTo;
+        private final int inStock;
+
+        Criteria(ProductFilter filter) {
+            brandFiltered = filter.getBrandId() != null;
+            brand = brandFiltered ? brandDictionary.find(filter.getBrandId()) : NO_BRAND;
+            categoryCodes = filter.getCategoryId() == null || filter.getCategoryId().isEmpty()
+                            ? null
+                            : filter.getCategoryId().stream().mapToInt(categoryDictionary::find).toArray();
+            featured = filter.getFeatured() == null ? -1 : filter.getFeatured() ? FEATURED : 0;
+            minRating = filter.getMinRating() == null ? Double.NEGATIVE_INFINITY : filter.getMinRating();
+            maxRating = filter.getMaxRating() == null ? Double.POSITIVE_INFINITY : filter.getMaxRating();
+            expirationBounded = filter.getExpiresFrom() != null || filter.getExpiresTo() != null;
+            expiresFrom = filter.getExpiresFrom() == null ? Long.MIN_VALUE : filter.getExpiresFrom().getTime();
+            expiresTo = filter.getExpiresTo() == null ? Long.MAX_VALUE : filter.getExpiresTo().getTime();
+            receiptBounded = filter.getReceivedFrom() != null || filter.getReceivedTo() != null;
+            receivedFrom = filter.getReceivedFrom() == null ? Long.MIN_VALUE : filter.getReceivedFrom().getTime();
+            receivedTo = filter.getReceivedTo() == null ? Long.MAX_VALUE : filter.getReceivedTo().getTime();
+            inStock = filter.getInStock() == null ? -1 : filter.getInStock() ? 1 : 0;
+        }
+
+        boolean matches(int row) {
+            if ((flags[row] & DELETED) != 0) {
+                return false;
+            }
+            if (brandFiltered && brands[row] != brand) {
+                return false;
+            }
+            if (featured >= 0 && (flags[row] & FEATURED) != featured) {
+                return false;
+            }
+            if (ratings[row] < minRating || ratings[row] > maxRating) {
+                return false;
+            }
+            if (expirationBounded && !within(expirationDates[row], expiresFrom, expiresTo)) {
+                return false;
+            }
+            if (receiptBounded && !within(receiptDates[row], receivedFrom, receivedTo)) {
+                return false;
+            }
+            if (inStock >= 0 && (itemsInStock[row] > 0) != (inStock == 1)) {
+                return false;
+            }
+            return categoryCodes == null || inAnyCategory(categories[row]);
+        }
+
+        private boolean inAnyCategory(int[] codes) {
+            for (int code : codes) {
+                for (int requested : categoryCodes) {
+                    if (code == requested) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean within(long date, long from, long to) {
+            return date != NO_DATE && date >= from && date < to;
+        }
+    }
+
+    /**
+     * Brands or categories by code, each held once however many products reference it. Codes are given in the order
+     * the ids are first seen, and a later view of the same id replaces the earlier one.
+     */
+    private static class Dictionary<T> {
+        private final IntFunction<T[]> arrayFactory;
+        private final RowIndex codesById = new RowIndex(16);
+        private T[] values;
+        private int size;
+
+        Dictionary(IntFunction<T[]> arrayFactory) {
+            this.arrayFactory = arrayFactory;
+            this.values = arrayFactory.apply(16);
+        }
+
+        int code(int id, T value) {
+            int code = codesById.get(id);
+            if (code < 0) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                code = size++;
+                codesById.put(id, code);
+            }
+            values[code] = value;
+            return code;
+        }
+
+        /**
+         * @return the code of {@code id}, or one that no row references if no product has had it
+         */
+        int find(int id) {
+            final int code = codesById.get(id);
+            return code < 0 ? Integer.MAX_VALUE : code;
+        }
+
+        T get(int code) {
+            return values[code];
+        }
+    }
+
+    /**
+     * An open-addressing map from positive ids to non-negative rows, with linear probing. Kept at most half full, so
+     * a lookup rarely probes more than one or two slots, and deletion shifts the entries back rather than leaving
+     * markers.
+     */
+    private static class RowIndex {
+        private final static int FREE = 0;
+
+        private int[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        RowIndex(int expectedSize) {
+            final int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        int get(int key) {
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                if (keys[slot] == FREE) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(int key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                if (keys[slot] == FREE) {
+                    keys[slot] = key;
+                    values[slot] = value;
+                    size++;
+                    return;
+                }
+            }
+        }
+
+        int remove(int key) {
+            int slot = slot(key);
+            while (keys[slot] != key) {
+                if (keys[slot] == FREE) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            final int value = values[slot];
+            // Entries after the gap that would no longer be found past it move into it.
+            int gap = slot;
+            for (int next = (gap + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+                final int home = slot(keys[next]);
+                final boolean reachable = gap <= next ? home > gap && home <= next : home > gap || home <= next;
+                if (!reachable) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = FREE;
+            size--;
+            return value;
+        }
+
+        private void resize() {
+            final int[] oldKeys = keys;
+            final int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            mask = keys.length - 1;
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != FREE) {
+                    put(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private int slot(int key) {
+            final int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
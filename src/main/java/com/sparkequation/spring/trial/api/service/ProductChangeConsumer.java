@@ -0,0 +1,53 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.model.ProductChangeBatch;
+
+import java.util.function.Consumer;
+
+/**
+ * An in-process consumer of the product changes: hands them to a handler in sequence order and commits its offset
+ * after every batch, so a new instance with the same name resumes where the last one stopped. A batch that failed is
+ * handled again, the handler has to be idempotent.
+ */
+public class ProductChangeConsumer {
+
+    private final String name;
+    private final ProductChangeService productChangeService;
+    private final int batchSize;
+    private final Consumer<ProductChange> handler;
+
+    public ProductChangeConsumer(
+            String name,
+            ProductChangeService productChangeService,
+            int batchSize,
+            Consumer<ProductChange> handler
+    ) {
+        this.name = name;
+        this.productChangeService = productChangeService;
+        this.batchSize = batchSize;
+        this.handler = handler;
+    }
+
+    /**
+     * Handles every change committed since the last poll.
+     *
+     * @return the number of changes handled
+     */
+    public int poll() {
+        long offset = productChangeService.getOffset(name).getSequence();
+        int handled = 0;
+        ProductChangeBatch batch;
+        do {
+            batch = productChangeService.getChanges(offset, batchSize);
+            if (batch.getChanges().isEmpty()) {
+                break;
+            }
+            batch.getChanges().forEach(handler);
+            offset = batch.getLastSequence();
+            productChangeService.commitOffset(name, offset);
+            handled += batch.getChanges().size();
+        } while (batch.getChanges().size() == batchSize);
+        return handled;
+    }
+}
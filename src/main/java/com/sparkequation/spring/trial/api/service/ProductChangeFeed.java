@@ -0,0 +1,137 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.model.ProductChangeBatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes the product changes to server-sent event subscribers. The outbox is polled once for all of them, from the
+ * subscriber furthest behind, and each subscriber is sent the changes of a batch it hasn't seen as one event whose
+ * id is the last sequence, so a client reconnecting with Last-Event-ID resumes where it stopped.
+ * <p>
+ * The poll runs on the shared scheduler, the sends on threads of the feed, {@code api.product.changes.sse-threads} of
+ * them: a send blocks for as long as the client takes to read it. A subscriber still busy with a send skips the
+ * batches polled meanwhile and gets them with the next poll, which starts from the subscriber furthest behind.
+ */
+@Component
+public class ProductChangeFeed {
+
+    public final static String EVENT_NAME = "changes";
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Value("${api.product.changes.sse-timeout:1800000}")
+    private long timeout;
+
+    @Value("${api.product.changes.default-size:100}")
+    private int batchSize;
+
+    @Value("${api.product.changes.sse-threads:4}")
+    private int senderThreads;
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void init() {
+        senders = Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("product-change-feed-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    public SseEmitter subscribe(long after) {
+        final SseEmitter emitter = new SseEmitter(timeout);
+        final Subscription subscription = new Subscription(emitter, after);
+        subscriptions.add(subscription);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${api.product.changes.poll-interval:500}")
+    public void deliver() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long after = subscriptions.stream().mapToLong(subscription -> subscription.lastSequence).min().orElseThrow();
+        ProductChangeBatch batch;
+        do {
+            batch = productChangeService.getChanges(after, batchSize);
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(batch.getChanges());
+            }
+            after = batch.getLastSequence();
+        } while (batch.getChanges().size() == batchSize);
+    }
+
+    private class Subscription {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long lastSequence;
+
+        Subscription(SseEmitter emitter, long lastSequence) {
+            this.emitter = emitter;
+            this.lastSequence = lastSequence;
+        }
+
+        void offer(List<ProductChange> changes) {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(() -> {
+                    try {
+                        send(changes);
+                    } finally {
+                        sending.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                sending.set(false);
+            }
+        }
+
+        private void send(List<ProductChange> changes) {
+            final List<ProductChange> unseen = changes.stream()
+                                                      .filter(change -> change.getSequence() > lastSequence)
+                                                      .collect(Collectors.toList());
+            if (unseen.isEmpty()) {
+                return;
+            }
+            final long last = unseen.get(unseen.size() - 1).getSequence();
+            try {
+                emitter.send(SseEmitter.event()
+                                       .id(Long.toString(last))
+                                       .name(EVENT_NAME)
+                                       .data(unseen, MediaType.APPLICATION_JSON));
+                lastSequence = last;
+            } catch (IOException e) {
+                subscriptions.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
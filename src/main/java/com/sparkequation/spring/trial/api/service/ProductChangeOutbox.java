@@ -0,0 +1,120 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.repository.ProductChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Appends the {@link ProductChangedEvent}s of the write paths and the {@link ReferenceDataChangedEvent}s to the
+ * outbox, in the transaction of the change so a change is in the outbox if and only if it was committed. The changes
+ * of a transaction are collected and appended in one batch just before it commits, which keeps the gap its sequences
+ * leave until the commit as short as possible. Once committed, the batch is handed to the {@link CatalogChangeCounter} and to the
+ * {@link ProductChangeTransport} for the other nodes of the cluster.
+ * <p>
+ * Every write path publishes its events in a transaction. An event published outside of one is appended in a
+ * transaction of its own, after the change it reports: it is lost if the node stops in between.
+ */
+@Component
+class ProductChangeOutbox {
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    @Autowired
+    private ProductChangeTransport productChangeTransport;
+
+    @Autowired
+    private CatalogChangeCounter catalogChangeCounter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isRemote()) {
+            append(event.getProductId(), event.getChange().name());
+        }
+    }
+
+    @EventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        append(event.getId(), event.getType().name());
+    }
+
+    private void append(int id, String type) {
+        final ProductChange change = new ProductChange();
+        change.setProductId(id);
+        change.setChange(type);
+        change.setChangedAt(new Date());
+        change.setOrigin(clusterNode.getId());
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionTemplate.executeWithoutResult(status -> productChangeRepository.append(List.of(change)));
+            committed(List.of(change));
+            return;
+        }
+        pendingChanges().changes.add(change);
+    }
+
+    private void committed(List<ProductChange> changes) {
+        catalogChangeCounter.onCommitted(changes);
+        productChangeTransport.send(changes);
+    }
+
+    /**
+     * Looked up among the synchronizations rather than bound as a resource: a transaction suspended by a nested one
+     * takes its synchronizations along.
+     */
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges) {
+                return (PendingChanges) synchronization;
+            }
+        }
+        final PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private class PendingChanges extends TransactionSynchronizationAdapter {
+        private final List<ProductChange> changes = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Flushed first, so the sequences aren't taken while the changed products are written.
+            entityManager.flush();
+            productChangeRepository.append(changes);
+        }
+
+        @Override
+        public void afterCommit() {
+            committed(changes);
+        }
+    }
+}
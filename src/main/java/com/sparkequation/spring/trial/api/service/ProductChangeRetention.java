@@ -0,0 +1,46 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.repository.ProductChangeOffsetRepository;
+import com.sparkequation.spring.trial.api.repository.ProductChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Deletes the changes every consumer with a stored offset has processed, once they are older than
+ * {@code api.product.changes.retention.min-age}: the readers without a stored offset, the event streams and the other
+ * nodes, have that long to catch up. Changes older than {@code api.product.changes.retention.max-age} are deleted
+ * whatever the offsets, a consumer that stopped for good doesn't keep the outbox growing.
+ */
+@Component
+class ProductChangeRetention {
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ProductChangeOffsetRepository productChangeOffsetRepository;
+
+    @Value("${api.product.changes.retention.min-age:3600000}")
+    private long minAge;
+
+    @Value("${api.product.changes.retention.max-age:604800000}")
+    private long maxAge;
+
+    /**
+     * @return the number of changes deleted
+     */
+    @Scheduled(fixedDelayString = "${api.product.changes.retention.interval:60000}")
+    public int prune() {
+        final Long lowestOffset = productChangeOffsetRepository.findLowestSequence();
+        final long now = System.currentTimeMillis();
+        return productChangeRepository.deleteOlderThan(
+                lowestOffset == null ? Long.MAX_VALUE : lowestOffset,
+                new Date(now - minAge),
+                new Date(now - maxAge)
+        );
+    }
+}
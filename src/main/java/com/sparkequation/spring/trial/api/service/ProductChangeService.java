@@ -0,0 +1,25 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.ProductChangeBatch;
+import com.sparkequation.spring.trial.api.model.ProductChangeOffset;
+
+public interface ProductChangeService {
+
+    /**
+     * Changes with a sequence above {@code after}, oldest first. Changes that may still be committing are held back,
+     * see {@link com.sparkequation.spring.trial.api.repository.ProductChangeOutboxRepository}.
+     */
+    ProductChangeBatch getChanges(long after, Integer size);
+
+    /**
+     * @return a sequence every change up to which has been committed or rolled back, 0 before the first change
+     */
+    long getLastSequence();
+
+    /**
+     * @return the stored offset of the consumer, at sequence 0 if it has none yet
+     */
+    ProductChangeOffset getOffset(String consumer);
+
+    void commitOffset(String consumer, long sequence);
+}
@@ -0,0 +1,72 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.config.MetricsConfig;
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.model.ProductChangeBatch;
+import com.sparkequation.spring.trial.api.model.ProductChangeOffset;
+import com.sparkequation.spring.trial.api.repository.ProductChangeOffsetRepository;
+import com.sparkequation.spring.trial.api.repository.ProductChangeRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional
+public class ProductChangeServiceImpl implements ProductChangeService {
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ProductChangeOffsetRepository productChangeOffsetRepository;
+
+    @Value("${api.product.changes.default-size:100}")
+    private int defaultBatchSize;
+
+    @Value("${api.product.changes.max-size:1000}")
+    private int maxBatchSize;
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public ProductChangeBatch getChanges(long after, Integer size) {
+        final List<ProductChange> changes = productChangeRepository.findAfter(
+                after,
+                size == null ? defaultBatchSize : Math.min(size, maxBatchSize)
+        );
+        return new ProductChangeBatch(
+                changes,
+                changes.isEmpty() ? after : changes.get(changes.size() - 1).getSequence()
+        );
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public long getLastSequence() {
+        return productChangeRepository.findLastSettledSequence();
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public ProductChangeOffset getOffset(String consumer) {
+        return productChangeOffsetRepository.findById(consumer).orElseGet(() -> {
+            final ProductChangeOffset offset = new ProductChangeOffset();
+            offset.setConsumer(consumer);
+            return offset;
+        });
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public void commitOffset(String consumer, long sequence) {
+        final ProductChangeOffset offset = getOffset(consumer);
+        offset.setSequence(sequence);
+        productChangeOffsetRepository.save(offset);
+    }
+}
@@ -0,0 +1,32 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.ProductChange;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries the product changes committed on one node of the cluster to the others, which drop what they hold of the
+ * changed products. Picked by {@code api.cluster.transport}; the default, {@code outbox}, polls the outbox table and
+ * needs nothing but the database.
+ */
+public interface ProductChangeTransport {
+
+    /**
+     * Sends the changes this node committed, called after their commit. A change is in the outbox by then, a
+     * transport that reads the outbox has nothing to send.
+     */
+    void send(List<ProductChange> changes);
+
+    /**
+     * Sets where the changes of the other nodes go, in batches in commit order. The changes of this node are not
+     * handed back.
+     */
+    void receive(Consumer<List<ProductChange>> receiver);
+
+    /**
+     * @return the outbox sequence up to which the changes of every node are applied here, those of the other nodes
+     * handed to the receiver and those of this node committed
+     */
+    long getAppliedSequence();
+}
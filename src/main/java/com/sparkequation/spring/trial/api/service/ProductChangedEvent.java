@@ -0,0 +1,96 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+
+/**
+ * Published by the write paths of the product services for every product they change. Listeners that keep derived
+ * views of the products should handle it after commit, so a rolled back change is never seen.
+ * <p>
+ * The changes committed on other nodes of the cluster are published here too, as {@link #isRemote() remote} events
+ * of the products as they were read after the change.
+ */
+public class ProductChangedEvent {
+
+    public enum Change {
+        /**
+         * Added or updated, the event carries the product as it was written.
+         */
+        SAVED,
+        /**
+         * Only the stock changed, by a statement that didn't load the product.
+         */
+        STOCK,
+        /**
+         * Flagged as expired by the expiry sweep.
+         */
+        EXPIRED,
+        DELETED
+    }
+
+    private final int productId;
+    private final Change change;
+    private final Product product;
+    private final boolean remote;
+
+    private ProductChangedEvent(int productId, Change change, Product product, boolean remote) {
+        this.productId = productId;
+        this.change = change;
+        this.product = product;
+        this.remote = remote;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), Change.SAVED, product, false);
+    }
+
+    public static ProductChangedEvent stockChanged(int productId) {
+        return new ProductChangedEvent(productId, Change.STOCK, null, false);
+    }
+
+    public static ProductChangedEvent expired(int productId) {
+        return new ProductChangedEvent(productId, Change.EXPIRED, null, false);
+    }
+
+    public static ProductChangedEvent deleted(int productId) {
+        return new ProductChangedEvent(productId, Change.DELETED, null, false);
+    }
+
+    static ProductChangedEvent savedRemotely(Product product) {
+        return new ProductChangedEvent(product.getId(), Change.SAVED, product, true);
+    }
+
+    static ProductChangedEvent deletedRemotely(int productId) {
+        return new ProductChangedEvent(productId, Change.DELETED, null, true);
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    /**
+     * @return the product as written for {@link Change#SAVED}, {@code null} otherwise
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * @return whether the change was committed on another node, and is already in the outbox
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductChangedEvent{" +
+               "productId=" + productId +
+               ", change=" + change +
+               ", remote=" + remote +
+               '}';
+    }
+}
@@ -0,0 +1,169 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The ids of the products that will expire, in one bucket per UTC day of their expiration date. Expired products
+ * leave the index when the sweep flags them, so the buckets up to today are what the sweep has to look at.
+ * <p>
+ * Loaded once at startup and then maintained from the {@link ProductChangedEvent}s of committed changes, the same way
+ * as the {@link FeaturedProductIndex}.
+ */
+@Component
+class ProductExpiryIndex {
+
+    private final static long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final NavigableMap<Long, NavigableSet<Integer>> buckets = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Long> dayById = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @PostConstruct
+    void rebuild() {
+        synchronized (this) {
+            buckets.clear();
+            dayById.clear();
+            for (Object[] row : productRepository.findExpirationDates()) {
+                add((Integer) row[0], day((Date) row[1]));
+            }
+        }
+    }
+
+    /**
+     * Products expiring up to the end of the day {@code days} after today, including expired ones not swept yet,
+     * by expiration day and then id.
+     *
+     * @param loader reads the products of the given ids, in any order
+     */
+    ProductPage getPage(
+            int days,
+            String continuationToken,
+            int size,
+            Function<Collection<Integer>, List<ProductView>> loader
+    ) {
+        final ContinuationToken.Cursor cursor = ContinuationToken.decodeExpiring(continuationToken);
+        NavigableMap<Long, NavigableSet<Integer>> range = buckets.headMap(
+                day(System.currentTimeMillis()) + days,
+                true
+        );
+        if (cursor != null) {
+            range = range.tailMap((Long) cursor.getLastValue(), true);
+        }
+        final List<Integer> ids = new ArrayList<>();
+        long lastDay = 0;
+        boolean hasNext = false;
+        scan:
+        for (Map.Entry<Long, NavigableSet<Integer>> bucket : range.entrySet()) {
+            final NavigableSet<Integer> bucketIds = cursor != null && bucket.getKey().equals(cursor.getLastValue())
+                                                    ? bucket.getValue().tailSet(cursor.getLastId(), false)
+                                                    : bucket.getValue();
+            for (Integer id : bucketIds) {
+                if (ids.size() == size) {
+                    hasNext = true;
+                    break scan;
+                }
+                ids.add(id);
+                lastDay = bucket.getKey();
+            }
+        }
+        if (ids.isEmpty()) {
+            return new ProductPage(Collections.emptyList(), null);
+        }
+        final Map<Integer, ProductView> productsById = loader.apply(ids)
+                                                             .stream()
+                                                             .collect(Collectors.toMap(
+                                                                     ProductView::getId,
+                                                                     Function.identity()
+                                                             ));
+        // Products deleted since their ids were read are left out.
+        final List<ProductView> products = ids.stream()
+                                              .map(productsById::get)
+                                              .filter(Objects::nonNull)
+                                              .collect(Collectors.toList());
+        return new ProductPage(
+                products,
+                hasNext ? ContinuationToken.encodeExpiring(lastDay, ids.get(ids.size() - 1)) : null
+        );
+    }
+
+    /**
+     * @return the ids in the buckets up to the day of {@code now}, some of which may expire later that day
+     */
+    List<Integer> getExpiredCandidates(Date now) {
+        final List<Integer> ids = new ArrayList<>();
+        buckets.headMap(day(now), true).values().forEach(ids::addAll);
+        return ids;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getChange()) {
+            case SAVED:
+                put(event.getProduct());
+                break;
+            case EXPIRED:
+            case DELETED:
+                remove(event.getProductId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private synchronized void put(Product product) {
+        remove(product.getId());
+        if (product.getExpirationDate() != null && !product.isExpired()) {
+            add(product.getId(), day(product.getExpirationDate()));
+        }
+    }
+
+    private synchronized void add(int id, long day) {
+        buckets.computeIfAbsent(day, key -> new ConcurrentSkipListSet<>()).add(id);
+        dayById.put(id, day);
+    }
+
+    private synchronized void remove(int id) {
+        final Long day = dayById.remove(id);
+        if (day == null) {
+            return;
+        }
+        final NavigableSet<Integer> bucket = buckets.get(day);
+        bucket.remove(id);
+        if (bucket.isEmpty()) {
+            buckets.remove(day);
+        }
+    }
+
+    private static long day(Date date) {
+        return day(date.getTime());
+    }
+
+    private static long day(long millis) {
+        return Math.floorDiv(millis, DAY_MILLIS);
+    }
+}
@@ -0,0 +1,74 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Flags the products whose expiration date has passed. Only the candidates of the {@link ProductExpiryIndex} are
+ * checked, a batch of them per transaction, so the sweep never scans the PRODUCT table and is idle until the first
+ * product is about to expire.
+ */
+@Component
+class ProductExpirySweeper {
+
+    @Autowired
+    private ProductExpiryIndex productExpiryIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${api.product.expiry.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${api.product.expiry.sweep-interval:60000}")
+    public void sweep() {
+        final Date now = new Date();
+        final List<Integer> candidates = productExpiryIndex.getExpiredCandidates(now);
+        final Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            final List<Integer> batch = candidates.subList(from, Math.min(from + batchSize, candidates.size()));
+            final List<Integer> expired = transactionTemplate.execute(status -> {
+                final List<Integer> ids = productRepository.lockExpiredIds(batch, now);
+                if (ids.isEmpty()) {
+                    return Collections.<Integer>emptyList();
+                }
+                productRepository.markExpired(ids);
+                ids.forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.expired(id)));
+                return ids;
+            });
+            if (products != null && expired != null) {
+                expired.forEach(products::evict);
+            }
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index of the words of the product and brand names, kept in memory for the name search. Loaded once at
+ * startup and then maintained from the {@link ProductChangedEvent}s of committed changes, like the
+ * {@link FeaturedProductIndex}. Deleted products leave a {@link ProductTombstones tombstone}.
+ * <p>
+ * Words are compared without case and accents. Every word of a query has to match a word of the product name or of
+ * its brand name: the same word, a word it starts if it is the last one typed, or else a word a typo or two away.
+ * Matches are ranked by how close they are, and then by rating.
+ */
+@Component
+class ProductNameIndex {
+
+    private final static Pattern MARKS = Pattern.compile("\\p{M}+");
+    private final static Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private final static double MAX_RATING = 10;
+    private final static double EXACT = 1;
+    private final static double PREFIX = 0.8;
+    private final static double TYPO = 0.6;
+    /**
+     * A brand name says less about a product than its own name.
+     */
+    private final static double BRAND = 0.5;
+    private final static Comparator<Hit> RANKING = Comparator.comparingDouble((Hit hit) -> hit.score)
+                                                             .thenComparingInt(hit -> -hit.id);
+
+    private final NavigableMap<String, Postings> nameWords = new TreeMap<>();
+    private final NavigableMap<String, Postings> brandWords = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ProductTombstones tombstones = new ProductTombstones();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${api.product.search.rating-weight:0.2}")
+    private double ratingWeight;
+
+    @Value("${api.product.search.max-expansions:64}")
+    private int maxExpansions;
+
+    @PostConstruct
+    void rebuild() {
+        lock.writeLock().lock();
+        try {
+            nameWords.clear();
+            brandWords.clear();
+            documents.clear();
+            for (Object[] row : productRepository.findSearchTerms()) {
+                put((Integer) row[0], (Integer) row[1], (String) row[2], (String) row[3], (Double) row[4]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the best {@code limit} matches of {@code query}, best first
+     */
+    List<Integer> search(String query, int limit) {
+        final List<String> words = words(query);
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            final List<List<Match>> matches = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                final List<Match> wordMatches = match(words.get(i), i == words.size() - 1);
+                if (wordMatches.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                matches.add(wordMatches);
+            }
+            // Candidates come from the rarest word, the others only have to be looked up for them.
+            int rarest = 0;
+            for (int i = 1; i < matches.size(); i++) {
+                if (postingCount(matches.get(i)) < postingCount(matches.get(rarest))) {
+                    rarest = i;
+                }
+            }
+            final Map<Integer, Double> candidates = new HashMap<>();
+            for (Match match : matches.get(rarest)) {
+                for (int i = 0; i < match.postings.size; i++) {
+                    candidates.merge(match.postings.ids[i], match.weight, Math::max);
+                }
+            }
+            final PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING);
+            for (Map.Entry<Integer, Double> candidate : candidates.entrySet()) {
+                final double score = score(candidate.getKey(), candidate.getValue(), rarest, matches);
+                if (score > 0 && (best.size() < limit || score >= best.peek().score)) {
+                    best.add(new Hit(candidate.getKey(), score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            final Integer[] ids = new Integer[best.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = best.poll().id;
+            }
+            return Arrays.asList(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.getChange()) {
+            case SAVED:
+                final Product product = event.getProduct();
+                lock.writeLock().lock();
+                try {
+                    put(
+                            product.getId(),
+                            product.getVersion(),
+                            product.getName(),
+                            product.getBrand() == null ? null : product.getBrand().getName(),
+                            product.getRating()
+                    );
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                break;
+            case DELETED:
+                lock.writeLock().lock();
+                try {
+                    tombstones.deleted(event.getProductId());
+                    remove(event.getProductId());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                break;
+            default:
+                // Stock and expiry change neither the names nor the rating.
+                break;
+        }
+    }
+
+    /**
+     * Words of the query matched by the words of the index, each with how close the match is.
+     */
+    private List<Match> match(String word, boolean last) {
+        final List<Match> matches = new ArrayList<>();
+        match(nameWords, word, last, 1, matches);
+        match(brandWords, word, last, BRAND, matches);
+        return matches;
+    }
+
+    private void match(
+            NavigableMap<String, Postings> index,
+            String word,
+            boolean last,
+            double fieldWeight,
+            List<Match> matches
+    ) {
+        final int found = matches.size();
+        final Postings exact = index.get(word);
+        if (exact != null) {
+            matches.add(new Match(exact, EXACT * fieldWeight));
+        }
+        // The last word may still be being typed.
+        if (last && word.length() > 1) {
+            int expansions = 0;
+            for (Postings postings : index.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+                if (expansions++ == maxExpansions) {
+                    break;
+                }
+                matches.add(new Match(postings, PREFIX * fieldWeight));
+            }
+        }
+        if (matches.size() > found) {
+            return;
+        }
+        // Only words without a closer match are looked up with typos, among the words of the same first letter.
+        final int maxDistance = maxDistance(word);
+        if (maxDistance == 0) {
+            return;
+        }
+        final char first = word.charAt(0);
+        int expansions = 0;
+        for (Map.Entry<String, Postings> entry : index.subMap(
+                String.valueOf(first),
+                true,
+                String.valueOf((char) (first + 1)),
+                false
+        ).entrySet()) {
+            if (Math.abs(entry.getKey().length() - word.length()) <= maxDistance
+                && distance(word, entry.getKey(), maxDistance) <= maxDistance) {
+                matches.add(new Match(entry.getValue(), TYPO * fieldWeight));
+                if (++expansions == maxExpansions) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 0 if a word of the query isn't matched by the product, otherwise the relevance, from matching every word
+     * exactly in the name down to typos in the brand, blended with the rating. The weight of the rarest word is known
+     * from collecting the candidates.
+     */
+    private double score(int id, double rarestWeight, int rarest, List<List<Match>> matches) {
+        double relevance = rarestWeight;
+        for (int i = 0; i < matches.size(); i++) {
+            if (i == rarest) {
+                continue;
+            }
+            double best = 0;
+            for (Match match : matches.get(i)) {
+                if (match.weight > best && match.postings.contains(id)) {
+                    best = match.weight;
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            relevance += best;
+        }
+        final double rating = Math.max(0, Math.min(documents.get(id).rating, MAX_RATING));
+        return (1 - ratingWeight) * relevance / matches.size() + ratingWeight * rating / MAX_RATING;
+    }
+
+    private void put(int id, int version, String name, String brandName, double rating) {
+        if (tombstones.isRemoved(id, version)) {
+            return;
+        }
+        final Document current = documents.get(id);
+        // Listeners of concurrent commits may run in any order, an older version must not replace a newer one.
+        if (current != null) {
+            if (current.version > version) {
+                return;
+            }
+            remove(id);
+        }
+        documents.put(id, new Document(
+                version,
+                add(nameWords, id, words(name)),
+                add(brandWords, id, words(brandName)),
+                rating
+        ));
+    }
+
+    private void remove(int id) {
+        final Document document = documents.remove(id);
+        if (document != null) {
+            remove(nameWords, id, document.nameWords);
+            remove(brandWords, id, document.brandWords);
+        }
+    }
+
+    /**
+     * @return the words as held by the index, so every product shares one instance of each word
+     */
+    private static String[] add(NavigableMap<String, Postings> index, int id, List<String> words) {
+        final String[] indexed = new String[words.size()];
+        for (int i = 0; i < indexed.length; i++) {
+            final String word = words.get(i);
+            final Map.Entry<String, Postings> entry = index.ceilingEntry(word);
+            if (entry != null && entry.getKey().equals(word)) {
+                entry.getValue().add(id);
+                indexed[i] = entry.getKey();
+            } else {
+                final Postings postings = new Postings();
+                postings.add(id);
+                index.put(word, postings);
+                indexed[i] = word;
+            }
+        }
+        return indexed;
+    }
+
+    private static void remove(NavigableMap<String, Postings> index, int id, String[] words) {
+        for (String word : words) {
+            final Postings postings = index.get(word);
+            postings.remove(id);
+            if (postings.size == 0) {
+                index.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Distinct words, lower case and without accents.
+     */
+    private static List<String> words(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        final String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                                       .replaceAll("")
+                                       .toLowerCase(Locale.ROOT);
+        final List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(normalized)) {
+            if (!word.isEmpty() && !words.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Short words have too many neighbours for a typo to tell them apart.
+     */
+    private static int maxDistance(String word) {
+        return word.length() < 4 ? 0 : word.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Edit distance counting a swap of two adjacent letters as one edit, or {@code max + 1} once it is sure to exceed
+     * {@code max}.
+     */
+    private static int distance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        int[] next = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            current[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            final int[] beforePrevious = previous;
+            previous = current;
+            current = next;
+            next = beforePrevious;
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                final int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, next[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+        }
+        return current[b.length()];
+    }
+
+    private static int postingCount(List<Match> matches) {
+        return matches.stream().mapToInt(match -> match.postings.size).sum();
+    }
+
+    /**
+     * Sorted product ids of a word. Products are added with increasing ids, so adding is mostly appending.
+     */
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            final int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            final int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            final int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    private static class Document {
+        private final int version;
+        private final String[] nameWords;
+        private final String[] brandWords;
+        private final double rating;
+
+        Document(int version, String[] nameWords, String[] brandWords, double rating) {
+            this.version = version;
+            this.nameWords = nameWords;
+            this.brandWords = brandWords;
+            this.rating = rating;
+        }
+    }
+
+    private static class Match {
+        private final Postings postings;
+        private final double weight;
+
+        Match(Postings postings, double weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+    }
+
+    private static class Hit {
+        private final int id;
+        private final double score;
+
+        Hit(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -1,17 +1,85 @@
 package com.sparkequation.spring.trial.api.service;
 
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
 import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ProductService {
-    List<Product> getProducts();
+    List<ProductView> getProducts();
 
-    Product getProductById(Integer id);
+    ProductPage getProductPage(String continuationToken, Integer size);
+
+    ProductPage searchProducts(ProductFilter filter);
+
+    /**
+     * Featured products, highest rated first, paged like a search sorted by rating descending.
+     */
+    ProductPage getFeaturedProducts(String continuationToken, Integer size);
+
+    /**
+     * Products expiring within {@code days} days from today, soonest first, including expired ones not flagged yet.
+     */
+    ProductPage getExpiringProducts(int days, String continuationToken, Integer size);
+
+    /**
+     * Best matches of the words of {@code query} in the product and brand names, allowing for typos and a last word
+     * still being typed, best first.
+     */
+    List<ProductView> searchProductsByName(String query, Integer size);
+
+    void forEachProduct(Consumer<ProductView> consumer);
+
+    ProductView getProductById(Integer id);
+
+    /**
+     * @return the version of the product, read without loading it, or {@code null} if there is no such product
+     */
+    Integer getProductVersion(Integer id);
+
+    /**
+     * Validators of the catalog, changed by every committed product change and the same on every node that has
+     * applied the same changes.
+     */
+    CatalogStamp getCatalogStamp();
 
     void addProduct(Product product);
 
-    void updateProductById(Integer id, Product product);
+    /**
+     * @param expectedVersions versions the caller accepts to update, or {@code null} to update unconditionally
+     * @return version of the product after the update
+     */
+    int updateProductById(Integer id, Product product, Set<Integer> expectedVersions);
+
+    /**
+     * Same as {@link #updateProductById} for the fields set in {@code patch} only.
+     */
+    int patchProductById(Integer id, ProductPatch patch, Set<Integer> expectedVersions);
 
     void deleteProductById(Integer id);
+
+    /**
+     * Takes {@code count} items out of stock. Reservations covered by releases still pending reach the database with
+     * them.
+     *
+     * @throws com.sparkequation.spring.trial.api.service.exception.InsufficientStockException if there are fewer
+     */
+    void reserveItems(Integer id, int count);
+
+    /**
+     * Puts {@code count} previously reserved items back. Releases of frequently changed products may reach the
+     * database with a delay of one flush interval.
+     */
+    void releaseItems(Integer id, int count);
+
+    /**
+     * Adds {@code delta} items, or removes them if it is negative, without going below zero.
+     */
+    void adjustItemsInStock(Integer id, int delta);
 }
@@ -1,52 +1,377 @@
 package com.sparkequation.spring.trial.api.service;
 
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.config.MetricsConfig;
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
 import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
 import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import com.sparkequation.spring.trial.api.repository.ProductSortKey;
+import com.sparkequation.spring.trial.api.repository.ProductSpecifications;
+import com.sparkequation.spring.trial.api.service.exception.InsufficientStockException;
 import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import com.sparkequation.spring.trial.api.service.exception.ProductVersionMismatchException;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.transaction.Transactional;
+import javax.annotation.PostConstruct;
+import javax.persistence.Tuple;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ProductServiceImpl implements ProductService {
 
     private final static String PRODUCT_NOT_FOUND = "Product with id = %s not found.";
+    private final static String VERSION_MISMATCH = "Product with id = %s is at version %s, not in %s.";
+    private final static String INSUFFICIENT_STOCK = "Product with id = %s has fewer than %s items in stock.";
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private StockDeltaBuffer stockDeltaBuffer;
+
+    @Autowired
+    private FeaturedProductIndex featuredProductIndex;
+
+    @Autowired
+    private ProductExpiryIndex productExpiryIndex;
+
+    @Autowired
+    private ProductNameIndex productNameIndex;
+
+    @Autowired
+    private CatalogChangeCounter catalogChangeCounter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${api.product.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${api.product.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${api.product.search.default-size:20}")
+    private int defaultSearchSize;
+
+    @Value("${api.product.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    private TransactionTemplate transactionTemplate;
+    private Cache productCache;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        productCache = cacheManager.getCache(CacheConfig.PRODUCTS);
+    }
+
     @Override
-    public List<Product> getProducts() {
-        return productRepository.findAll();
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public List<ProductView> getProducts() {
+        return productRepository.findAllViews();
     }
 
     @Override
-    public Product getProductById(Integer id) {
-        return productRepository.findById(id)
-                                .orElseThrow(() -> new NoSuchProductException(String.format(PRODUCT_NOT_FOUND, id)));
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public ProductPage getProductPage(String continuationToken, Integer size) {
+        final int lastId = ContinuationToken.decode(continuationToken);
+        final int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+        // Ids first, then one query for the rows of the page: a limit on the rows of the join with the categories would
+        // cut the last product short. One extra id tells whether there is a next page without a COUNT query.
+        final List<Integer> ids = productRepository.findIdsAfter(lastId, PageRequest.of(0, pageSize + 1));
+        if (ids.isEmpty()) {
+            return new ProductPage(Collections.emptyList(), null);
+        }
+        final boolean hasNext = ids.size() > pageSize;
+        final List<Integer> pageIds = hasNext ? ids.subList(0, pageSize) : ids;
+        final List<ProductView> products = productRepository.findViewsByIdIn(pageIds);
+        return new ProductPage(products, hasNext ? ContinuationToken.encode(pageIds.get(pageSize - 1)) : null);
     }
 
     @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public ProductPage searchProducts(ProductFilter filter) {
+        final ProductSortKey sortKey = ProductSortKey.fromAttribute(filter.getSort());
+        final Sort.Direction direction = Sort.Direction.fromString(filter.getDirection());
+        final int pageSize = filter.getSize() == null ? defaultPageSize : Math.min(filter.getSize(), maxPageSize);
+        final ContinuationToken.Cursor cursor = ContinuationToken.decode(filter.getToken(), sortKey, direction);
+        Specification<Product> specification = ProductSpecifications.matching(filter);
+        if (cursor != null) {
+            specification = specification.and(ProductSpecifications.after(
+                    sortKey,
+                    direction,
+                    cursor.getLastValue(),
+                    cursor.getLastId()
+            ));
+        }
+        // Same two phases as the plain listing: the filtered keyset page of ids, then the products of that page.
+        final List<Tuple> keys = productRepository.findSortKeys(specification, sortKey, direction, pageSize + 1);
+        if (keys.isEmpty()) {
+            return new ProductPage(Collections.emptyList(), null);
+        }
+        final boolean hasNext = keys.size() > pageSize;
+        final List<Tuple> pageKeys = hasNext ? keys.subList(0, pageSize) : keys;
+        final List<Integer> ids = pageKeys.stream().map(key -> (Integer) key.get(0)).collect(Collectors.toList());
+        final Map<Integer, ProductView> productsById = productRepository.findViewsByIdIn(ids)
+                                                                        .stream()
+                                                                        .collect(Collectors.toMap(
+                                                                                ProductView::getId,
+                                                                                Function.identity()
+                                                                        ));
+        final List<ProductView> products = ids.stream().map(productsById::get).collect(Collectors.toList());
+        if (!hasNext) {
+            return new ProductPage(products, null);
+        }
+        final Tuple lastKey = pageKeys.get(pageSize - 1);
+        return new ProductPage(
+                products,
+                ContinuationToken.encode(sortKey, direction, lastKey.get(1), (Integer) lastKey.get(0))
+        );
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductPage getFeaturedProducts(String continuationToken, Integer size) {
+        return featuredProductIndex.getPage(
+                continuationToken,
+                size == null ? defaultPageSize : Math.min(size, maxPageSize)
+        );
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public ProductPage getExpiringProducts(int days, String continuationToken, Integer size) {
+        return productExpiryIndex.getPage(
+                days,
+                continuationToken,
+                size == null ? defaultPageSize : Math.min(size, maxPageSize),
+                productRepository::findViewsByIdIn
+        );
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public List<ProductView> searchProductsByName(String query, Integer size) {
+        final List<Integer> ids = productNameIndex.search(
+                query,
+                size == null ? defaultSearchSize : Math.min(size, maxPageSize)
+        );
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Map<Integer, ProductView> productsById = productRepository.findViewsByIdIn(ids)
+                                                                        .stream()
+                                                                        .collect(Collectors.toMap(
+                                                                                ProductView::getId,
+                                                                                Function.identity()
+                                                                        ));
+        // Products deleted since the search are left out.
+        return ids.stream().map(productsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public void forEachProduct(Consumer<ProductView> consumer) {
+        // Views hold no session state, so nothing accumulates however many products are streamed.
+        productRepository.forEachView(streamFetchSize, consumer);
+    }
+
+    /**
+     * Reads through the product cache by hand rather than with {@code @Cacheable}: a view read just before a write
+     * commits could be put after the write evicted it, and stay until it expires. The version is read again after the
+     * put, when it is that of the write if its eviction came first, and a view it doesn't match is evicted. Put and
+     * evicted at once, not after commit like the evictions of the writes.
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public ProductView getProductById(Integer id) {
+        final ProductView cached = productCache.get(id, ProductView.class);
+        if (cached != null) {
+            return cached;
+        }
+        final ProductView product = productRepository.findViewById(id).orElseThrow(
+                () -> new NoSuchProductException(String.format(PRODUCT_NOT_FOUND, id))
+        );
+        productCache.putIfAbsent(id, product);
+        if (!productRepository.findVersionById(id).map(version -> version == product.getVersion()).orElse(false)) {
+            productCache.evictIfPresent(id);
+        }
+        return product;
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public Integer getProductVersion(Integer id) {
+        return productRepository.findVersionById(id).orElse(null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CatalogStamp getCatalogStamp() {
+        return catalogChangeCounter.getStamp();
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public void addProduct(Product product) {
-        productRepository.save(product);
+        resolveReferences(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(productRepository.save(product)));
     }
 
     @Override
-    public void updateProductById(Integer id, Product product) {
-        Product productToUpdate = productRepository.findById(id)
-                                                   .orElseThrow(() -> new NoSuchProductException(String.format(
-                                                           PRODUCT_NOT_FOUND,
-                                                           id
-                                                   )));
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public int updateProductById(Integer id, Product product, Set<Integer> expectedVersions) {
+        final Product productToUpdate = getProductForUpdate(id, expectedVersions);
+        resolveReferences(product);
         productToUpdate.update(product);
-        productRepository.save(productToUpdate);
+        return save(productToUpdate);
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public int patchProductById(Integer id, ProductPatch patch, Set<Integer> expectedVersions) {
+        final Product productToUpdate = getProductForUpdate(id, expectedVersions);
+        if (patch.getBrand() != null) {
+            patch.setBrand(referenceDataService.resolveBrand(patch.getBrand()));
+        }
+        if (patch.getCategories() != null) {
+            patch.setCategories(referenceDataService.resolveCategories(patch.getCategories()));
+        }
+        productToUpdate.patch(patch);
+        return save(productToUpdate);
     }
 
     @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public void deleteProductById(Integer id) {
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void reserveItems(Integer id, int count) {
+        if (!stockDeltaBuffer.reserve(id, count)) {
+            adjustStock(id, -count);
+        }
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void releaseItems(Integer id, int count) {
+        if (!stockDeltaBuffer.release(id, count)) {
+            adjustStock(id, count);
+            stockDeltaBuffer.track(id);
+        }
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void adjustItemsInStock(Integer id, int delta) {
+        adjustStock(id, delta);
+    }
+
+    /**
+     * The stock operations don't open a transaction for the buffered ones, which don't touch the database at all.
+     * The others open one here, for the UPDATE and the change it appends to the outbox.
+     */
+    private void adjustStock(Integer id, int delta) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (productRepository.adjustItemsInStock(id, delta) == 0) {
+                if (!productRepository.existsById(id)) {
+                    throw new NoSuchProductException(String.format(PRODUCT_NOT_FOUND, id));
+                }
+                throw new InsufficientStockException(String.format(INSUFFICIENT_STOCK, id, -delta));
+            }
+            eventPublisher.publishEvent(ProductChangedEvent.stockChanged(id));
+        });
+    }
+
+    /**
+     * Flushed here rather than on commit to return the incremented version.
+     */
+    private int save(Product product) {
+        final Product saved = productRepository.saveAndFlush(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved.getVersion();
+    }
+
+    /**
+     * The version is checked twice: here against what the caller saw, and by Hibernate in the UPDATE against what was
+     * read, which fails with an optimistic locking exception if another writer committed in between.
+     */
+    private Product getProductForUpdate(Integer id, Set<Integer> expectedVersions) {
+        final Product product = productRepository.findWithBrandAndCategoriesById(id)
+                                                 .orElseThrow(() -> new NoSuchProductException(String.format(
+                                                         PRODUCT_NOT_FOUND,
+                                                         id
+                                                 )));
+        if (expectedVersions != null && !expectedVersions.contains(product.getVersion())) {
+            throw new ProductVersionMismatchException(String.format(
+                    VERSION_MISMATCH,
+                    id,
+                    product.getVersion(),
+                    expectedVersions
+            ));
+        }
+        return product;
+    }
+
+    private void resolveReferences(Product product) {
+        product.setBrand(referenceDataService.resolveBrand(product.getBrand()));
+        product.setCategories(referenceDataService.resolveCategories(product.getCategories()));
     }
 }
@@ -0,0 +1,38 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * The products an in-memory index dropped and the version they were dropped at, so that the event of an older
+ * version, handled late by a listener of a concurrent commit, can't bring them back. Deleted products are never saved
+ * again and stay dropped whatever the version.
+ * <p>
+ * Late events come within the time of a commit, or of a poll for the ones of other nodes: the tombstones are
+ * forgotten after {@link #RETENTION}.
+ */
+class ProductTombstones {
+
+    private final static Duration RETENTION = Duration.ofMinutes(10);
+    private final static int DELETED = Integer.MAX_VALUE;
+
+    private final Cache<Integer, Integer> versions = Caffeine.newBuilder().expireAfterWrite(RETENTION).build();
+
+    void removed(int id, int version) {
+        versions.asMap().merge(id, version, Math::max);
+    }
+
+    void deleted(int id) {
+        versions.put(id, DELETED);
+    }
+
+    /**
+     * @return whether {@code version} of the product isn't newer than the one it was dropped at
+     */
+    boolean isRemoved(int id, int version) {
+        final Integer removed = versions.getIfPresent(id);
+        return removed != null && removed >= version;
+    }
+}
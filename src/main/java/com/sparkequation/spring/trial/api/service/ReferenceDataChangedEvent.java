@@ -0,0 +1,48 @@
+package com.sparkequation.spring.trial.api.service;
+
+/**
+ * Published by {@link ReferenceDataServiceImpl} for every brand and category it creates, in the transaction of the
+ * product that references it. Brands and categories are never updated or deleted.
+ */
+public class ReferenceDataChangedEvent {
+
+    public enum Type {
+        BRAND,
+        CATEGORY
+    }
+
+    private final Type type;
+    private final int id;
+
+    private ReferenceDataChangedEvent(Type type, int id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public static ReferenceDataChangedEvent brandCreated(int id) {
+        return new ReferenceDataChangedEvent(Type.BRAND, id);
+    }
+
+    public static ReferenceDataChangedEvent categoryCreated(int id) {
+        return new ReferenceDataChangedEvent(Type.CATEGORY, id);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of the brand or category
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceDataChangedEvent{" +
+               "type=" + type +
+               ", id=" + id +
+               '}';
+    }
+}
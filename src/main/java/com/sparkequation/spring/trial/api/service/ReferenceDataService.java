@@ -0,0 +1,12 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+
+import java.util.Set;
+
+public interface ReferenceDataService {
+    Brand resolveBrand(Brand brand);
+
+    Set<Category> resolveCategories(Set<Category> categories);
+}
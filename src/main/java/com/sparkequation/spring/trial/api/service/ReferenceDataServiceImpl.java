@@ -0,0 +1,80 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.repository.BrandRepository;
+import com.sparkequation.spring.trial.api.repository.CategoryRepository;
+import com.sparkequation.spring.trial.api.service.exception.NoSuchReferenceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maps brands and categories sent with a product onto existing rows, served from the brand and category caches,
+ * and creates the ones that don't exist yet. Products only reference them, so product writes never rewrite
+ * reference data. A creation is published as a {@link ReferenceDataChangedEvent}, which the other nodes of the cluster
+ * need to find it by name.
+ */
+@Service
+@Transactional
+public class ReferenceDataServiceImpl implements ReferenceDataService {
+
+    private final static String BRAND_NOT_FOUND = "Brand with id = %s not found.";
+    private final static String CATEGORY_NOT_FOUND = "Category with id = %s not found.";
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Brand resolveBrand(Brand brand) {
+        if (brand == null) {
+            return null;
+        }
+        if (brand.getId() > 0) {
+            return brandRepository.findById(brand.getId())
+                                  .orElseThrow(() -> new NoSuchReferenceException(String.format(
+                                          BRAND_NOT_FOUND,
+                                          brand.getId()
+                                  )));
+        }
+        return brandRepository.findFirstByNameAndCountry(brand.getName(), brand.getCountry()).orElseGet(() -> {
+            final Brand created = brandRepository.save(brand);
+            eventPublisher.publishEvent(ReferenceDataChangedEvent.brandCreated(created.getId()));
+            return created;
+        });
+    }
+
+    @Override
+    public Set<Category> resolveCategories(Set<Category> categories) {
+        if (categories == null) {
+            return null;
+        }
+        return categories.stream().map(this::resolveCategory).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private Category resolveCategory(Category category) {
+        if (category.getId() > 0) {
+            return categoryRepository.findById(category.getId())
+                                     .orElseThrow(() -> new NoSuchReferenceException(String.format(
+                                             CATEGORY_NOT_FOUND,
+                                             category.getId()
+                                     )));
+        }
+        return categoryRepository.findFirstByName(category.getName()).orElseGet(() -> {
+            final Category created = categoryRepository.save(category);
+            eventPublisher.publishEvent(ReferenceDataChangedEvent.categoryCreated(created.getId()));
+            return created;
+        });
+    }
+}
@@ -0,0 +1,200 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.config.MetricsConfig;
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.ProductSortKey;
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The product service of {@code api.product.read-mode=snapshot}: the product reads are served from the
+ * {@link ProductCatalogSnapshot} and everything else is handed on to {@link ProductServiceImpl}. The reads run without
+ * a transaction, since even a read-only one takes a connection from the pool when it begins.
+ * <p>
+ * A write is in the snapshot when it returns, as the snapshot is updated after commit on the writing thread.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = ProductCatalogSnapshot.READ_MODE, havingValue = "snapshot")
+public class SnapshotProductService implements ProductService {
+
+    private final static String PRODUCT_NOT_FOUND = "Product with id = %s not found.";
+
+    @Autowired
+    private ProductServiceImpl productServiceImpl;
+
+    @Autowired
+    private ProductCatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private ProductExpiryIndex productExpiryIndex;
+
+    @Autowired
+    private ProductNameIndex productNameIndex;
+
+    @Value("${api.product.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${api.product.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${api.product.search.default-size:20}")
+    private int defaultSearchSize;
+
+    @Value("${api.product.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public List<ProductView> getProducts() {
+        return catalogSnapshot.getViewsAfter(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public ProductPage getProductPage(String continuationToken, Integer size) {
+        final int lastId = ContinuationToken.decode(continuationToken);
+        final int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+        final List<ProductView> products = catalogSnapshot.getViewsAfter(lastId, pageSize + 1);
+        if (products.size() <= pageSize) {
+            return new ProductPage(products, null);
+        }
+        final List<ProductView> page = products.subList(0, pageSize);
+        return new ProductPage(page, ContinuationToken.encode(page.get(pageSize - 1).getId()));
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public ProductPage searchProducts(ProductFilter filter) {
+        return catalogSnapshot.search(
+                filter,
+                ProductSortKey.fromAttribute(filter.getSort()),
+                Sort.Direction.fromString(filter.getDirection()),
+                filter.getSize() == null ? defaultPageSize : Math.min(filter.getSize(), maxPageSize)
+        );
+    }
+
+    @Override
+    public ProductPage getFeaturedProducts(String continuationToken, Integer size) {
+        return productServiceImpl.getFeaturedProducts(continuationToken, size);
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public ProductPage getExpiringProducts(int days, String continuationToken, Integer size) {
+        return productExpiryIndex.getPage(
+                days,
+                continuationToken,
+                size == null ? defaultPageSize : Math.min(size, maxPageSize),
+                catalogSnapshot::getViews
+        );
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public List<ProductView> searchProductsByName(String query, Integer size) {
+        final List<Integer> ids = productNameIndex.search(
+                query,
+                size == null ? defaultSearchSize : Math.min(size, maxPageSize)
+        );
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Map<Integer, ProductView> productsById = catalogSnapshot.getViews(ids)
+                                                                      .stream()
+                                                                      .collect(Collectors.toMap(
+                                                                              ProductView::getId,
+                                                                              Function.identity()
+                                                                      ));
+        return ids.stream().map(productsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Copied out a chunk at a time, so a slow consumer doesn't hold off the writes.
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public void forEachProduct(Consumer<ProductView> consumer) {
+        List<ProductView> chunk = catalogSnapshot.getViewsAfter(0, streamFetchSize);
+        while (!chunk.isEmpty()) {
+            chunk.forEach(consumer);
+            chunk = catalogSnapshot.getViewsAfter(chunk.get(chunk.size() - 1).getId(), streamFetchSize);
+        }
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public ProductView getProductById(Integer id) {
+        final ProductView product = catalogSnapshot.getView(id);
+        if (product == null) {
+            throw new NoSuchProductException(String.format(PRODUCT_NOT_FOUND, id));
+        }
+        return product;
+    }
+
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Integer getProductVersion(Integer id) {
+        return catalogSnapshot.getVersion(id);
+    }
+
+    @Override
+    public CatalogStamp getCatalogStamp() {
+        return productServiceImpl.getCatalogStamp();
+    }
+
+    @Override
+    public void addProduct(Product product) {
+        productServiceImpl.addProduct(product);
+    }
+
+    @Override
+    public int updateProductById(Integer id, Product product, Set<Integer> expectedVersions) {
+        return productServiceImpl.updateProductById(id, product, expectedVersions);
+    }
+
+    @Override
+    public int patchProductById(Integer id, ProductPatch patch, Set<Integer> expectedVersions) {
+        return productServiceImpl.patchProductById(id, patch, expectedVersions);
+    }
+
+    @Override
+    public void deleteProductById(Integer id) {
+        productServiceImpl.deleteProductById(id);
+    }
+
+    @Override
+    public void reserveItems(Integer id, int count) {
+        productServiceImpl.reserveItems(id, count);
+    }
+
+    @Override
+    public void releaseItems(Integer id, int count) {
+        productServiceImpl.releaseItems(id, count);
+    }
+
+    @Override
+    public void adjustItemsInStock(Integer id, int delta) {
+        productServiceImpl.adjustItemsInStock(id, delta);
+    }
+}
@@ -0,0 +1,163 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces stock returned to hot products: releases accumulate in memory and are written as one UPDATE per product
+ * per flush interval. Reservations are served from the pending releases first and only go to the database when those
+ * don't cover them, so the stock seen by reservations is the database value plus what is pending and never negative.
+ * <p>
+ * A product becomes hot once a release for it has been written directly, which also proves that it exists, and as
+ * long as there are fewer than {@code api.product.stock.max-hot-products} hot products. It cools down after two flush
+ * intervals without releases and after it has been deleted.
+ * <p>
+ * The buffered releases and the reservations taken from them reach the product reads only with the flush: until
+ * then the stock read is up to one flush interval stale, and the product version, its ETag and the catalog ETag stay
+ * as they were. The flush writes the net change as one stock change, with a new version and a change event. A write
+ * that fails, on a lock or connection timeout for instance, keeps its releases for the next flush.
+ */
+@Component
+class StockDeltaBuffer {
+
+    private final static Logger LOG = LoggerFactory.getLogger(StockDeltaBuffer.class);
+
+    private final Map<Integer, PendingReleases> pendingReleases = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${api.product.stock.coalescing:true}")
+    private boolean coalescing;
+
+    @Value("${api.product.stock.max-hot-products:10000}")
+    private int maxHotProducts;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return whether the release was buffered, otherwise the caller has to write it and may {@link #track} the product
+     */
+    boolean release(int id, int count) {
+        // Atomic with the removal of an idle product, so a release can't land on a counter no flush will see.
+        return pendingReleases.computeIfPresent(id, (key, pending) -> {
+            pending.items.addAndGet(count);
+            return pending;
+        }) != null;
+    }
+
+    void track(int id) {
+        if (coalescing && pendingReleases.size() < maxHotProducts) {
+            pendingReleases.putIfAbsent(id, new PendingReleases());
+        }
+    }
+
+    /**
+     * @return whether {@code count} items were taken from the pending releases, which is all or nothing
+     */
+    boolean reserve(int id, int count) {
+        final PendingReleases pending = pendingReleases.get(id);
+        if (pending == null) {
+            return false;
+        }
+        int current;
+        do {
+            current = pending.items.get();
+            if (current < count) {
+                return false;
+            }
+        } while (!pending.items.compareAndSet(current, current - count));
+        return true;
+    }
+
+    /**
+     * One flush at a time, so the last one, on shutdown, waits for a scheduled one that holds releases it took.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${api.product.stock.flush-interval:100}")
+    public synchronized void flush() {
+        final Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        pendingReleases.forEach((id, pending) -> {
+            final int delta = pending.items.getAndSet(0);
+            if (delta == 0) {
+                if (pending.idle) {
+                    pendingReleases.computeIfPresent(id, (key, idle) -> idle.items.get() == 0 ? null : idle);
+                }
+                pending.idle = true;
+                return;
+            }
+            pending.idle = false;
+            final Boolean written;
+            try {
+                // One transaction per product, for its UPDATE and the change appended to the outbox.
+                written = transactionTemplate.execute(status -> {
+                    if (productRepository.adjustItemsInStock(id, delta) == 0) {
+                        return false;
+                    }
+                    eventPublisher.publishEvent(ProductChangedEvent.stockChanged(id));
+                    return true;
+                });
+            } catch (RuntimeException e) {
+                LOG.warn("Stock of product {} not written, {} released items kept for the next flush", id, delta, e);
+                restore(id, pending, delta);
+                return;
+            }
+            if (!Boolean.TRUE.equals(written)) {
+                pendingReleases.remove(id);
+            } else if (products != null) {
+                products.evict(id);
+            }
+        });
+    }
+
+    /**
+     * Puts back the releases of a failed write, atomic with the removal of an idle product like {@link #release}.
+     */
+    private void restore(int id, PendingReleases pending, int delta) {
+        pendingReleases.compute(id, (key, current) -> {
+            final PendingReleases restored = current != null ? current : pending;
+            restored.items.addAndGet(delta);
+            return restored;
+        });
+    }
+
+    private static class PendingReleases {
+        private final AtomicInteger items = new AtomicInteger();
+
+        /**
+         * Whether the last flush found nothing to write, kept by the flush.
+         */
+        private boolean idle;
+    }
+}
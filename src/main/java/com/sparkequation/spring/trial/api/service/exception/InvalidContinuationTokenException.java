@@ -0,0 +1,12 @@
+package com.sparkequation.spring.trial.api.service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid continuation token")
+public class InvalidContinuationTokenException extends RuntimeException {
+
+    public InvalidContinuationTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
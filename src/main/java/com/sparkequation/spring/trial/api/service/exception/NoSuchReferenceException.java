@@ -0,0 +1,12 @@
+package com.sparkequation.spring.trial.api.service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "No such Brand or Category")
+public class NoSuchReferenceException extends RuntimeException {
+
+    public NoSuchReferenceException(String message) {
+        super(message);
+    }
+}
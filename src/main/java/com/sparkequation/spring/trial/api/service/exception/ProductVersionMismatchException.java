@@ -0,0 +1,12 @@
+package com.sparkequation.spring.trial.api.service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED, reason = "Product was modified")
+public class ProductVersionMismatchException extends RuntimeException {
+
+    public ProductVersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -2,15 +2,19 @@ package com.sparkequation.spring.trial.api.validator;
 
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 public class ProductExpirationDateImpl implements ConstraintValidator<ProductExpirationDate, Date> {
 
+    private final static long MIN_SHELF_LIFE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    /**
+     * Compares epoch millis, so validating a product allocates nothing.
+     */
     @Override
     public boolean isValid(Date productExpirationDate, ConstraintValidatorContext context) {
         return productExpirationDate == null
-               || productExpirationDate.after(Date.from(Instant.now().plus(30, ChronoUnit.DAYS)));
+               || productExpirationDate.getTime() > System.currentTimeMillis() + MIN_SHELF_LIFE_MILLIS;
     }
 }
@@ -94,4 +94,4 @@ INSERT INTO CATEGORY_PRODUCT (CategoryId, ProductId) VALUES
 (5, 14),
 (5, 21),
 (5, 23),
-(5, 26);
\ No newline at end of file
+(5, 26);
@@ -0,0 +1,45 @@
+package com.sparkequation.spring.trial.api;
+
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * New products for the tests to add, referencing a brand and categories of data.sql by id.
+ */
+public final class TestProducts {
+
+    private final static int BRAND = 4;
+    private final static int CATEGORY = 1;
+
+    private TestProducts() {
+    }
+
+    /**
+     * A product of brand 4 in category 1.
+     */
+    public static Product product(String name, double rating) {
+        final Product product = product(name, BRAND, CATEGORY);
+        product.setRating(rating);
+        return product;
+    }
+
+    public static Product product(String name, int brandId, int... categoryIds) {
+        final Brand brand = new Brand();
+        brand.setId(brandId);
+        final Set<Category> categories = new HashSet<>();
+        for (int categoryId : categoryIds) {
+            final Category category = new Category();
+            category.setId(categoryId);
+            categories.add(category);
+        }
+        final Product product = new Product();
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategories(categories);
+        return product;
+    }
+}
@@ -0,0 +1,49 @@
+package com.sparkequation.spring.trial.api.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void prometheus_exposesApiMetrics() throws Exception {
+        mockMvc.perform(get("/api/product/{id}", 1)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/product/{id}", Integer.MAX_VALUE)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/product/page").param("size", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/product/filter").param("sort", "name")).andExpect(status().isBadRequest());
+
+        final String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                                     .andExpect(status().isOk())
+                                     .andReturn()
+                                     .getResponse()
+                                     .getContentAsString();
+        List.of(
+                "http_server_requests_seconds_bucket{",
+                "api_service_seconds_bucket{class=\"com.sparkequation.spring.trial.api.service.ProductServiceImpl\","
+                + "exception=\"none\",method=\"getProductById\"",
+                "api_repository_seconds_bucket{exception=\"none\",method=\"findViewById\","
+                + "repository=\"ProductRepository\"",
+                "api_hibernate_entity_loads_entities_bucket{",
+                "api_not_found_total{resource=\"product\",} 1.0",
+                "api_validation_failures_total{source=\"constraint\",} 1.0",
+                "api_validation_failures_total{source=\"parameters\",} 1.0",
+                "hikaricp_connections_active{",
+                "hibernate_statements_total{",
+                "cache_gets_total{cache=\"products\""
+        ).forEach(metric -> Assertions.assertTrue(scrape.contains(metric), metric));
+    }
+}
@@ -0,0 +1,109 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.TestProducts;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Date;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProductJsonHttpMessageConverterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void write_matchesObjectMapper() throws Exception {
+        final Product product = product();
+        productService.addProduct(product);
+        final int id = product.getId();
+        try {
+            for (int i = 0; i < 2; i++) {
+                Assertions.assertArrayEquals(
+                        objectMapper.writeValueAsBytes(productService.getProductById(id)),
+                        body(get("/api/product/{id}", id))
+                );
+                Assertions.assertArrayEquals(
+                        objectMapper.writeValueAsBytes(productService.getProducts()),
+                        body(get("/api/product/all"))
+                );
+                Assertions.assertArrayEquals(
+                        objectMapper.writeValueAsBytes(productService.getProductPage(null, 3)),
+                        body(get("/api/product/page").param("size", "3"))
+                );
+            }
+        } finally {
+            productService.deleteProductById(id);
+        }
+    }
+
+    @Test
+    public void write_followsWrites() throws Exception {
+        final Product product = product();
+        productService.addProduct(product);
+        final int id = product.getId();
+        final Cache fragments = cacheManager.getCache(CacheConfig.PRODUCT_JSON);
+        try {
+            body(get("/api/product/{id}", id));
+            Assertions.assertNotNull(fragments.get(id));
+
+            final ProductPatch patch = new ProductPatch();
+            patch.setName("Rendered again");
+            productService.patchProductById(id, patch, null);
+            Assertions.assertNull(fragments.get(id));
+            Assertions.assertArrayEquals(
+                    objectMapper.writeValueAsBytes(productService.getProductById(id)),
+                    body(get("/api/product/{id}", id))
+            );
+            Assertions.assertEquals(
+                    "Rendered again",
+                    objectMapper.readTree(body(get("/api/product/{id}", id))).get("name").asText()
+            );
+        } finally {
+            productService.deleteProductById(id);
+        }
+        Assertions.assertNull(fragments.get(id));
+    }
+
+    private byte[] body(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.accept(MediaType.APPLICATION_JSON))
+                      .andExpect(status().isOk())
+                      .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                      .andReturn()
+                      .getResponse()
+                      .getContentAsByteArray();
+    }
+
+    private static Product product() {
+        final Product product = TestProducts.product("Rendered product \"quoted\" é", 4.5);
+        product.setItemsInStock(7);
+        product.setReceiptDate(new Date());
+        return product;
+    }
+}
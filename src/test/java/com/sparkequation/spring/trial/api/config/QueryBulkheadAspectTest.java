@@ -0,0 +1,90 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.service.ProductChangedEvent;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import com.sparkequation.spring.trial.api.service.exception.ServiceBusyException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On a database of its own: recreating the shared one would leave the in-memory indexes of the other test contexts
+ * behind it.
+ */
+@SpringBootTest(properties = {
+        "api.execution.max-concurrent-queries=1",
+        "api.execution.query-permit-timeout=100",
+        "spring.datasource.url=jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1"
+})
+public class QueryBulkheadAspectTest {
+
+    private final static int PRODUCT_ID = 16;
+
+    private static volatile CountDownLatch updating;
+    private static volatile CountDownLatch release;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    public void productService_busyWhileAllPermitsHeld() throws Exception {
+        updating = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        final ProductPatch patch = new ProductPatch();
+        patch.setItemsInStock(productService.getProductById(PRODUCT_ID).getItemsInStock());
+        final CompletableFuture<Integer> holder = CompletableFuture.supplyAsync(
+                () -> productService.patchProductById(PRODUCT_ID, patch, null)
+        );
+        Assertions.assertTrue(updating.await(10, TimeUnit.SECONDS));
+
+        Assertions.assertThrows(ServiceBusyException.class, () -> productService.getProductById(1));
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(1, productService.getProductById(1).getId());
+    }
+
+    @Test
+    public void forEachProduct_holdsNoPermit() throws Exception {
+        final CountDownLatch streaming = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> productService.forEachProduct(product -> {
+            streaming.countDown();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        Assertions.assertTrue(streaming.await(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(1, productService.getProductById(1).getId());
+
+        done.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Holds the update of the product, and with it the permit of its call, until the test releases it.
+     */
+    @TestConfiguration
+    static class BlockingListener {
+
+        @EventListener
+        public void onProductChanged(ProductChangedEvent event) throws InterruptedException {
+            final CountDownLatch updating = QueryBulkheadAspectTest.updating;
+            if (updating != null && event.getProductId() == PRODUCT_ID) {
+                updating.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.sparkequation.spring.trial.api.config;
+
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import com.sparkequation.spring.trial.api.service.exception.ServiceBusyException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    private final static int CALLERS = 8;
+    private final static String KEY = "product-1";
+
+    @Test
+    public void concurrentCalls_shareOneLoad() throws Exception {
+        final SingleFlight singleFlight = new SingleFlight(5000);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Future<Object>> results = callConcurrently(singleFlight, () -> {
+            loads.incrementAndGet();
+            release.await();
+            return "loaded";
+        }, release);
+        for (Future<Object> result : results) {
+            Assertions.assertEquals("loaded", result.get());
+        }
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void failure_reachesEveryCaller() throws Exception {
+        final SingleFlight singleFlight = new SingleFlight(5000);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Future<Object>> results = callConcurrently(singleFlight, () -> {
+            release.await();
+            throw new NoSuchProductException("Product with id = 1 not found.");
+        }, release);
+        for (Future<Object> result : results) {
+            final ExecutionException e = Assertions.assertThrows(ExecutionException.class, result::get);
+            Assertions.assertTrue(e.getCause() instanceof NoSuchProductException);
+        }
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void waiting_timesOut() throws Exception {
+        final SingleFlight singleFlight = new SingleFlight(50);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Object> leader = executor.submit(call(singleFlight, () -> {
+                release.await();
+                return "loaded";
+            }));
+            while (singleFlight.inFlight() == 0) {
+                Thread.sleep(5);
+            }
+            Assertions.assertThrows(ServiceBusyException.class, () -> singleFlight.execute(KEY, () -> "own"));
+            release.countDown();
+            Assertions.assertEquals("loaded", leader.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void forget_startsNewLoad() throws Throwable {
+        final SingleFlight singleFlight = new SingleFlight(5000);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Object> before = executor.submit(call(singleFlight, () -> {
+                release.await();
+                return "before";
+            }));
+            while (singleFlight.inFlight() == 0) {
+                Thread.sleep(5);
+            }
+            singleFlight.forget();
+            Assertions.assertEquals("after", singleFlight.execute(KEY, () -> "after"));
+            release.countDown();
+            Assertions.assertEquals("before", before.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts the callers and counts {@code release} down once all but the one loading are waiting for it.
+     */
+    private static List<Future<Object>> callConcurrently(
+            SingleFlight singleFlight,
+            SingleFlight.Load load,
+            CountDownLatch release
+    ) throws InterruptedException {
+        final List<Thread> threads = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(CALLERS, runnable -> {
+            final Thread thread = new Thread(runnable);
+            threads.add(thread);
+            return thread;
+        });
+        final List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call(singleFlight, load)));
+        }
+        while (threads.size() < CALLERS
+               || threads.stream().filter(thread -> thread.getState() == Thread.State.TIMED_WAITING).count()
+                  < CALLERS - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        executor.shutdown();
+        return results;
+    }
+
+    private static Callable<Object> call(SingleFlight singleFlight, SingleFlight.Load load) {
+        return () -> {
+            try {
+                return singleFlight.execute(KEY, load);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
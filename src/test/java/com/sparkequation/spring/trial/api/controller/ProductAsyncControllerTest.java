@@ -0,0 +1,147 @@
+package com.sparkequation.spring.trial.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.config.ExecutionConfig;
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.ProductService;
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ProductAsyncController.class, properties = ExecutionConfig.MODE + "=async")
+@Import({ExecutionConfig.class, ProductResponses.class, SimpleMeterRegistry.class})
+public class ProductAsyncControllerTest {
+
+    private final static Integer PRODUCT_ID = 1;
+    private final static CatalogStamp CATALOG_STAMP = new CatalogStamp("k1a2b3-7", 1_600_000_000_000L);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ProductService productService;
+
+    @BeforeEach
+    public void stubCatalogStamp() {
+        when(productService.getCatalogStamp()).thenReturn(CATALOG_STAMP);
+    }
+
+    @Test
+    public void getProductById_ok() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setVersion(2);
+        when(productService.getProductById(eq(PRODUCT_ID))).thenReturn(ProductView.of(product));
+
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/async/{id}", PRODUCT_ID))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+               .andExpect(content().json(objectMapper.writeValueAsString(product)));
+    }
+
+    @Test
+    public void getProductById_notModified() throws Exception {
+        when(productService.getProductVersion(eq(PRODUCT_ID))).thenReturn(3);
+
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/async/{id}", PRODUCT_ID)
+                                                              .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        verify(productService, times(0)).getProductById(anyInt());
+    }
+
+    @Test
+    public void getProductById_notModifiedByAnyTag() throws Exception {
+        when(productService.getProductVersion(eq(PRODUCT_ID))).thenReturn(3);
+
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/async/{id}", PRODUCT_ID)
+                                                              .header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\""))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"));
+        verify(productService, times(0)).getProductById(anyInt());
+    }
+
+    @Test
+    public void getProductById_noSuchProduct() throws Exception {
+        when(productService.getProductById(eq(PRODUCT_ID))).thenThrow(new NoSuchProductException("No such Product"));
+
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/async/{id}", PRODUCT_ID))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getProductById_negativePathVariable() throws Exception {
+        mockMvc.perform(get("/api/product/async/{id}", -1)).andExpect(status().isBadRequest());
+        verify(productService, times(0)).getProductById(anyInt());
+    }
+
+    @Test
+    public void getProductPage_ok() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        final ProductPage page = new ProductPage(List.of(ProductView.of(product)), null);
+        when(productService.getProductPage(isNull(), isNull())).thenReturn(page);
+
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/async/page"))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "W/\"k1a2b3-7\""))
+               .andExpect(content().json(objectMapper.writeValueAsString(page)));
+    }
+
+    @Test
+    public void getProductPage_notModified() throws Exception {
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/async/page")
+                                                              .header(HttpHeaders.IF_NONE_MATCH, "\"k1a2b3-7\""))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"));
+        verify(productService, times(0)).getProductPage(any(), any());
+    }
+}
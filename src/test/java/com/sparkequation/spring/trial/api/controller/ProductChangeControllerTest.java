@@ -0,0 +1,133 @@
+package com.sparkequation.spring.trial.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.model.ProductChangeBatch;
+import com.sparkequation.spring.trial.api.model.ProductChangeOffset;
+import com.sparkequation.spring.trial.api.service.ProductChangeFeed;
+import com.sparkequation.spring.trial.api.service.ProductChangeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ProductChangeController.class)
+@Import({ProductChangeFeed.class, SimpleMeterRegistry.class})
+public class ProductChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @MockBean
+    private ProductChangeService productChangeService;
+
+    @Test
+    public void getChanges_fromConsumerOffset() throws Exception {
+        final ProductChangeOffset offset = new ProductChangeOffset();
+        offset.setConsumer("search");
+        offset.setSequence(7);
+        final ProductChangeBatch batch = new ProductChangeBatch(List.of(change(8, 1), change(9, 2)), 9);
+        when(productChangeService.getOffset(eq("search"))).thenReturn(offset);
+        when(productChangeService.getChanges(eq(7L), eq(2))).thenReturn(batch);
+        mockMvc.perform(get("/api/product/changes").param("consumer", "search").param("size", "2"))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(batch)));
+    }
+
+    @Test
+    public void getChanges_after() throws Exception {
+        final ProductChangeBatch batch = new ProductChangeBatch(Collections.emptyList(), 3);
+        when(productChangeService.getChanges(eq(3L), isNull())).thenReturn(batch);
+        mockMvc.perform(get("/api/product/changes").param("after", "3").param("consumer", "search"))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(batch)));
+        verify(productChangeService, times(0)).getOffset(any());
+    }
+
+    @Test
+    public void getChanges_wrongConsumer() throws Exception {
+        mockMvc.perform(get("/api/product/changes").param("consumer", "in search"))
+               .andExpect(status().isBadRequest());
+        verify(productChangeService, times(0)).getChanges(anyLong(), any());
+    }
+
+    @Test
+    public void commitOffset_ok() throws Exception {
+        mockMvc.perform(put("/api/product/changes/offsets/{consumer}", "search").param("sequence", "42"))
+               .andExpect(status().isNoContent());
+        verify(productChangeService).commitOffset("search", 42);
+    }
+
+    @Test
+    public void commitOffset_negativeSequence() throws Exception {
+        mockMvc.perform(put("/api/product/changes/offsets/{consumer}", "search").param("sequence", "-1"))
+               .andExpect(status().isBadRequest());
+        verify(productChangeService, times(0)).commitOffset(any(), anyLong());
+    }
+
+    @Test
+    public void streamChanges_resumesFromLastEventId() throws Exception {
+        final MvcResult result = mockMvc.perform(get("/api/product/changes/stream")
+                                                         .accept(MediaType.TEXT_EVENT_STREAM)
+                                                         .header("Last-Event-ID", "5"))
+                                        .andExpect(request().asyncStarted())
+                                        .andReturn();
+        when(productChangeService.getChanges(eq(5L), any())).thenReturn(new ProductChangeBatch(
+                List.of(change(6, 1), change(7, 1)),
+                7
+        ));
+        when(productChangeService.getChanges(eq(7L), any())).thenReturn(new ProductChangeBatch(
+                Collections.emptyList(),
+                7
+        ));
+        productChangeFeed.deliver();
+        productChangeFeed.deliver();
+
+        // Sent by the threads of the feed.
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!result.getResponse().getContentAsString().contains("id:7") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        final String body = result.getResponse().getContentAsString();
+        Assertions.assertTrue(body.startsWith("id:7\nevent:" + ProductChangeFeed.EVENT_NAME + "\ndata:"), body);
+        Assertions.assertEquals(1, body.split("id:").length - 1, body);
+        verify(productChangeService, times(0)).getLastSequence();
+    }
+
+    private static ProductChange change(long sequence, int productId) {
+        final ProductChange change = new ProductChange();
+        change.setSequence(sequence);
+        change.setProductId(productId);
+        change.setChange("SAVED");
+        return change;
+    }
+}
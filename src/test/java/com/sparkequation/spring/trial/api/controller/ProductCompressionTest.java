@@ -0,0 +1,52 @@
+package com.sparkequation.spring.trial.api.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ProductCompressionTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void getProducts_gzipped() throws IOException {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        final ResponseEntity<byte[]> response = get(headers);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertTrue(response.getHeaders().getVary().stream().anyMatch(HttpHeaders.ACCEPT::equalsIgnoreCase));
+        Assertions.assertTrue(response.getHeaders().getETag().startsWith("W/"));
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            final byte[] json = body.readAllBytes();
+            Assertions.assertTrue(json.length > 2048);
+            Assertions.assertTrue(json.length > response.getBody().length);
+            Assertions.assertEquals('[', json[0]);
+        }
+
+        headers.setIfNoneMatch(response.getHeaders().getETag());
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, get(headers).getStatusCode());
+    }
+
+    private ResponseEntity<byte[]> get(HttpHeaders headers) {
+        return restTemplate.exchange("/api/product/all", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
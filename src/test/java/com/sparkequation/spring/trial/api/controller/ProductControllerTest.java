@@ -1,42 +1,79 @@
 package com.sparkequation.spring.trial.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.config.JacksonConfig;
 import com.sparkequation.spring.trial.api.controller.exception.handler.ResponseErrorInfo;
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
 import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBatchError;
+import com.sparkequation.spring.trial.api.model.ProductBatchResult;
+import com.sparkequation.spring.trial.api.model.ProductBulkDeleteProgress;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.ProductBatchService;
 import com.sparkequation.spring.trial.api.service.ProductService;
+import com.sparkequation.spring.trial.api.service.exception.InsufficientStockException;
+import com.sparkequation.spring.trial.api.service.exception.InvalidContinuationTokenException;
 import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import com.sparkequation.spring.trial.api.service.exception.ProductVersionMismatchException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest
+@WebMvcTest(ProductController.class)
+@Import({JacksonConfig.class, ProductResponses.class, SimpleMeterRegistry.class})
 public class ProductControllerTest {
 
     private final static Integer PRODUCT_ID = 1;
+    private final static CatalogStamp CATALOG_STAMP = new CatalogStamp("k1a2b3-7", 1_600_000_000_000L);
+    private final static MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private final static MediaType CBOR = MediaType.valueOf("application/cbor");
     private final static Path PRODUCTS_PATH = Path.of("src", "test", "resources", "products");
     private final static Path RESPONSE_PATH = Path.of("src", "test", "resources", "expected", "response");
     private final static String NO_SUCH_PRODUCT_MSG = "No such Product";
@@ -54,9 +91,17 @@ public class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductBatchService productBatchService;
+
+    @BeforeEach
+    public void stubCatalogStamp() {
+        when(productService.getCatalogStamp()).thenReturn(CATALOG_STAMP);
+    }
+
     @Test
     public void getProductsTest_ok() throws Exception {
-        final List<Product> products = Collections.singletonList(new Product());
+        final List<ProductView> products = Collections.singletonList(ProductView.of(new Product()));
         when(productService.getProducts()).thenReturn(products);
         mockMvc.perform(get("/api/product/all"))
                .andExpect(status().isOk())
@@ -64,17 +109,303 @@ public class ProductControllerTest {
         verify(productService).getProducts();
     }
 
+    @Test
+    public void getProductPage_ok() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        final ProductPage page = new ProductPage(Collections.singletonList(ProductView.of(product)), "next");
+        when(productService.getProductPage(eq("token"), eq(10))).thenReturn(page);
+        mockMvc.perform(get("/api/product/page").param("token", "token").param("size", "10"))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(page)));
+        verify(productService).getProductPage("token", 10);
+    }
+
+    @Test
+    public void getProducts_validators() throws Exception {
+        when(productService.getProducts()).thenReturn(Collections.emptyList());
+        mockMvc.perform(get("/api/product/all"))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "W/\"k1a2b3-7\""))
+               .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, CATALOG_STAMP.getLastModified()))
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+               .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    public void getProducts_notModified() throws Exception {
+        mockMvc.perform(get("/api/product/all").header(HttpHeaders.IF_NONE_MATCH, "W/\"k1a2b3-7\""))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, "W/\"k1a2b3-7\""))
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+               .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+               .andExpect(content().bytes(new byte[0]));
+        verify(productService, times(0)).getProducts();
+    }
+
+    @Test
+    public void getProductPage_notModifiedSince() throws Exception {
+        mockMvc.perform(get("/api/product/page").header(
+                HttpHeaders.IF_MODIFIED_SINCE,
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        Instant.ofEpochMilli(CATALOG_STAMP.getLastModified()).atZone(ZoneOffset.UTC)
+                )
+        ))
+               .andExpect(status().isNotModified());
+        verify(productService, times(0)).getProductPage(any(), any());
+    }
+
+    @Test
+    public void getFeaturedProducts_changedCatalog() throws Exception {
+        when(productService.getFeaturedProducts(any(), any())).thenReturn(new ProductPage(List.of(), null));
+        mockMvc.perform(get("/api/product/featured").header(HttpHeaders.IF_NONE_MATCH, "\"k1a2b3-6\""))
+               .andExpect(status().isOk())
+               .andExpect(header().stringValues(HttpHeaders.ETAG, "W/\"k1a2b3-7\""));
+        verify(productService).getFeaturedProducts(null, null);
+    }
+
+    @Test
+    public void getProductPage_invalidToken() throws Exception {
+        when(productService.getProductPage(eq("broken"), any()))
+                .thenThrow(new InvalidContinuationTokenException("broken", null));
+        mockMvc.perform(get("/api/product/page").param("token", "broken"))
+               .andExpect(status().isBadRequest())
+               .andExpect(result -> Assertions.assertEquals(
+                       "Invalid continuation token",
+                       result.getResponse().getErrorMessage()
+               ));
+    }
+
+    @Test
+    public void getProductPage_negativeSize() throws Exception {
+        mockMvc.perform(get("/api/product/page").param("size", "-1"))
+               .andExpect(status().isBadRequest())
+               .andExpect(result -> Assertions.assertEquals(
+                       "getProductPage.size: Page size must be positive.",
+                       result.getResponse().getErrorMessage()
+               ));
+        verify(productService, times(0)).getProductPage(any(), any());
+    }
+
+    @Test
+    public void searchProductsByName_ok() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setName("Budweiser");
+        final List<ProductView> products = List.of(ProductView.of(product));
+        when(productService.searchProductsByName(eq("budw"), isNull())).thenReturn(products);
+        mockMvc.perform(get("/api/product/search").param("q", "budw"))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "W/\"k1a2b3-7\""))
+               .andExpect(content().json(objectMapper.writeValueAsString(products)));
+        verify(productService).searchProductsByName("budw", null);
+    }
+
+    @Test
+    public void searchProductsByName_blankQuery() throws Exception {
+        mockMvc.perform(get("/api/product/search").param("q", " "))
+               .andExpect(status().isBadRequest())
+               .andExpect(result -> Assertions.assertEquals(
+                       "searchProductsByName.q: Query must not be blank.",
+                       result.getResponse().getErrorMessage()
+               ));
+        verify(productService, times(0)).searchProductsByName(any(), any());
+    }
+
+    @Test
+    public void getFeaturedProducts_ok() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setRating(9);
+        final ProductPage page = new ProductPage(Collections.singletonList(ProductView.of(product)), "next");
+        when(productService.getFeaturedProducts(eq("token"), eq(10))).thenReturn(page);
+        mockMvc.perform(get("/api/product/featured").param("token", "token").param("size", "10"))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(page)));
+        verify(productService).getFeaturedProducts("token", 10);
+    }
+
+    @Test
+    public void getFeaturedProducts_negativeSize() throws Exception {
+        mockMvc.perform(get("/api/product/featured").param("size", "0"))
+               .andExpect(status().isBadRequest())
+               .andExpect(result -> Assertions.assertEquals(
+                       "getFeaturedProducts.size: Page size must be positive.",
+                       result.getResponse().getErrorMessage()
+               ));
+        verify(productService, times(0)).getFeaturedProducts(any(), any());
+    }
+
+    @Test
+    public void getExpiringProducts_ok() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        final ProductPage page = new ProductPage(Collections.singletonList(ProductView.of(product)), null);
+        when(productService.getExpiringProducts(eq(7), isNull(), isNull())).thenReturn(page);
+        mockMvc.perform(get("/api/product/expiring").param("days", "7"))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(page)));
+        verify(productService).getExpiringProducts(7, null, null);
+    }
+
+    @Test
+    public void getExpiringProducts_negativeDays() throws Exception {
+        mockMvc.perform(get("/api/product/expiring").param("days", "-1"))
+               .andExpect(status().isBadRequest())
+               .andExpect(result -> Assertions.assertEquals(
+                       "getExpiringProducts.days: Days must not be negative.",
+                       result.getResponse().getErrorMessage()
+               ));
+        verify(productService, times(0)).getExpiringProducts(anyInt(), any(), any());
+    }
+
+    @Test
+    public void searchProducts_ok() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        final ProductPage page = new ProductPage(Collections.singletonList(ProductView.of(product)), null);
+        when(productService.searchProducts(any())).thenReturn(page);
+        mockMvc.perform(get("/api/product/filter").param("brandId", "4")
+                                                  .param("categoryId", "1", "2")
+                                                  .param("minRating", "3")
+                                                  .param("expiresFrom", "2030-01-01")
+                                                  .param("inStock", "true")
+                                                  .param("sort", "rating")
+                                                  .param("direction", "desc"))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(page)));
+        verify(productService).searchProducts(argThat(filter -> filter.getBrandId() == 4
+                                                                && filter.getCategoryId().equals(List.of(1, 2))
+                                                                && filter.getMinRating() == 3
+                                                                && filter.getExpiresFrom() != null
+                                                                && filter.getInStock()
+                                                                && filter.getSort().equals("rating")
+                                                                && filter.getDirection().equals("desc")));
+    }
+
+    @Test
+    public void searchProducts_invalidParameters() throws Exception {
+        mockMvc.perform(get("/api/product/filter").param("sort", "name").param("direction", "up"))
+               .andExpect(status().isBadRequest())
+               .andExpect(result -> Assertions.assertEquals(
+                       new ResponseErrorInfo(
+                               HttpStatus.BAD_REQUEST,
+                               "Request Parameters Not Valid",
+                               List.of("Direction must be asc or desc.", "Sort must be one of id, rating, itemsInStock.")
+                       ).toString(),
+                       objectMapper.readValue(result.getResponse().getContentAsString(), ResponseErrorInfo.class)
+                                   .toString()
+               ));
+        verify(productService, times(0)).searchProducts(any());
+    }
+
+    @Test
+    public void searchProducts_invalidParametersCbor() throws Exception {
+        final byte[] body = mockMvc.perform(get("/api/product/filter").param("sort", "name").accept(CBOR))
+                                   .andExpect(status().isBadRequest())
+                                   .andExpect(content().contentType(CBOR))
+                                   .andReturn()
+                                   .getResponse()
+                                   .getContentAsByteArray();
+        Assertions.assertEquals(
+                new ResponseErrorInfo(
+                        HttpStatus.BAD_REQUEST,
+                        "Request Parameters Not Valid",
+                        List.of("Sort must be one of id, rating, itemsInStock.")
+                ).toString(),
+                objectMapper.treeToValue(
+                        Jackson2ObjectMapperBuilder.cbor().build().readTree(body),
+                        ResponseErrorInfo.class
+                ).toString()
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamProducts_ok() throws Exception {
+        final Product first = new Product();
+        first.setId(PRODUCT_ID);
+        final Product second = new Product();
+        second.setId(PRODUCT_ID + 1);
+        doAnswer(invocation -> {
+            final Consumer<ProductView> consumer = invocation.getArgument(0);
+            consumer.accept(ProductView.of(first));
+            consumer.accept(ProductView.of(second));
+            return null;
+        }).when(productService).forEachProduct(any());
+
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/stream"))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(List.of(first, second))));
+    }
+
     @Test
     public void getProductById_ok() throws Exception {
         final Product product = new Product();
         product.setId(PRODUCT_ID);
-        when(productService.getProductById(eq(PRODUCT_ID))).thenReturn(product);
+        when(productService.getProductById(eq(PRODUCT_ID))).thenReturn(ProductView.of(product));
         mockMvc.perform(get("/api/product/{id}", PRODUCT_ID))
                .andExpect(status().isOk())
-               .andExpect(content().json(objectMapper.writeValueAsString(product)));
+               .andExpect(content().json(objectMapper.writeValueAsString(product)))
+               .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
         verify(productService).getProductById(PRODUCT_ID);
     }
 
+    @Test
+    public void getProductById_notModified() throws Exception {
+        when(productService.getProductVersion(eq(PRODUCT_ID))).thenReturn(3);
+        mockMvc.perform(get("/api/product/{id}", PRODUCT_ID).header(HttpHeaders.IF_NONE_MATCH, "\"2\", \"3\""))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+               .andExpect(content().bytes(new byte[0]));
+        verify(productService, times(0)).getProductById(any());
+    }
+
+    @Test
+    public void getProductById_modified() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setVersion(3);
+        when(productService.getProductVersion(eq(PRODUCT_ID))).thenReturn(3);
+        when(productService.getProductById(eq(PRODUCT_ID))).thenReturn(ProductView.of(product));
+        mockMvc.perform(get("/api/product/{id}", PRODUCT_ID).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+               .andExpect(status().isOk())
+               .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3\""))
+               .andExpect(content().json(objectMapper.writeValueAsString(product)));
+    }
+
+    @Test
+    public void getProductById_smile() throws Exception {
+        final Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setName("Smile");
+        when(productService.getProductById(eq(PRODUCT_ID))).thenReturn(ProductView.of(product));
+        final byte[] body = mockMvc.perform(get("/api/product/{id}", PRODUCT_ID).accept(SMILE))
+                                   .andExpect(status().isOk())
+                                   .andExpect(content().contentType(SMILE))
+                                   .andReturn()
+                                   .getResponse()
+                                   .getContentAsByteArray();
+        Assertions.assertEquals(product, Jackson2ObjectMapperBuilder.smile().build().readValue(body, Product.class));
+    }
+
+    @Test
+    public void addProduct_cbor() throws Exception {
+        final Product expectedProduct = objectMapper.readValue(
+                PRODUCTS_PATH.resolve("CorrectProduct.json").toFile(),
+                Product.class
+        );
+        mockMvc.perform(post("/api/product").content(Jackson2ObjectMapperBuilder.cbor()
+                                                                                 .build()
+                                                                                 .writeValueAsBytes(expectedProduct))
+                                            .contentType(CBOR))
+               .andExpect(status().isNoContent());
+        verify(productService).addProduct(argThat(argument -> argument.equals(expectedProduct)));
+    }
+
     @Test
     public void getProductById_noSuchProduct() throws Exception {
         when(productService.getProductById(eq(PRODUCT_ID))).thenThrow(new NoSuchProductException(NO_SUCH_PRODUCT_MSG));
@@ -120,6 +451,81 @@ public class ProductControllerTest {
         verify(productService).addProduct(argThat(argument -> argument.equals(expectedProduct)));
     }
 
+    @Test
+    public void addProducts_ok() throws Exception {
+        final String content = "[" + Files.readString(PRODUCTS_PATH.resolve("CorrectProduct.json")) + ","
+                               + Files.readString(PRODUCTS_PATH.resolve("EmptyNameProduct.json")) + "]";
+        final ProductBatchResult batchResult = new ProductBatchResult(
+                2,
+                1,
+                Collections.singletonList(new ProductBatchError(1, Collections.singletonList("error")))
+        );
+        when(productBatchService.addProducts(any(InputStream.class))).thenReturn(batchResult);
+        mockMvc.perform(post("/api/product/batch").content(content).contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(batchResult)));
+        verify(productBatchService).addProducts(any(InputStream.class));
+    }
+
+    @Test
+    public void addProducts_ndjson() throws Exception {
+        final ProductBatchResult batchResult = new ProductBatchResult(1, 1, Collections.emptyList());
+        when(productBatchService.addProducts(any(InputStream.class))).thenReturn(batchResult);
+        mockMvc.perform(
+                post("/api/product/batch").content(Files.readAllBytes(PRODUCTS_PATH.resolve("CorrectProduct.json")))
+                                          .contentType(ProductController.APPLICATION_NDJSON_VALUE)
+        )
+               .andExpect(status().isOk())
+               .andExpect(content().json(objectMapper.writeValueAsString(batchResult)));
+    }
+
+    @Test
+    public void addProducts_unsupportedMediaType() throws Exception {
+        mockMvc.perform(post("/api/product/batch").content("name").contentType(MediaType.TEXT_PLAIN))
+               .andExpect(status().isUnsupportedMediaType());
+        verify(productBatchService, times(0)).addProducts(any(InputStream.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void deleteProducts_progressLines() throws Exception {
+        final ProductBulkDeleteProgress chunk = new ProductBulkDeleteProgress(1, 2, 2, false);
+        final ProductBulkDeleteProgress done = new ProductBulkDeleteProgress(1, 2, 2, true);
+        doAnswer(invocation -> {
+            final Consumer<ProductBulkDeleteProgress> progress = invocation.getArgument(2);
+            progress.accept(chunk);
+            progress.accept(done);
+            return done;
+        }).when(productBatchService).deleteProducts(any(), anyBoolean(), any());
+
+        final MvcResult asyncResult = mockMvc.perform(post("/api/product/batch/delete")
+                                                              .content("{\"brandId\": 4}")
+                                                              .contentType(MediaType.APPLICATION_JSON))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.CONTENT_TYPE, ProductController.APPLICATION_NDJSON_VALUE))
+               .andExpect(content().string(objectMapper.writeValueAsString(chunk) + "\n"
+                                           + objectMapper.writeValueAsString(done) + "\n"));
+        final ProductSelection selection = new ProductSelection();
+        selection.setBrandId(4);
+        verify(productBatchService).deleteProducts(eq(selection), eq(true), any());
+    }
+
+    @Test
+    public void deleteProducts_invalidSelection() throws Exception {
+        mockMvc.perform(post("/api/product/batch/delete")
+                                .content("{\"brandId\": 4, \"ids\": [1, 2]}")
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/product/batch/delete")
+                                .content("{\"ids\": []}")
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isBadRequest());
+        verify(productBatchService, times(0)).deleteProducts(any(), anyBoolean(), any());
+    }
+
     @Test
     public void addProduct_emptyCategories() throws Exception {
         validateAddProduct("EmptyCategoriesProduct.json", "EmptyCategoriesResponse.json");
@@ -159,7 +565,11 @@ public class ProductControllerTest {
                         .content(Files.readAllBytes(productPath))
                         .contentType(MediaType.APPLICATION_JSON)
         ).andExpect(status().isNoContent());
-        verify(productService).updateProductById(eq(PRODUCT_ID), argThat(argument -> argument.equals(expectedProduct)));
+        verify(productService).updateProductById(
+                eq(PRODUCT_ID),
+                argThat(argument -> argument.equals(expectedProduct)),
+                isNull()
+        );
     }
 
     @Test
@@ -194,8 +604,9 @@ public class ProductControllerTest {
 
     @Test
     public void updateProductById_noSuchProduct() throws Exception {
-        doThrow(new NoSuchProductException(NO_SUCH_PRODUCT_MSG)).when(productService)
-                                                                .updateProductById(eq(PRODUCT_ID), any(Product.class));
+        doThrow(new NoSuchProductException(NO_SUCH_PRODUCT_MSG))
+                .when(productService)
+                .updateProductById(eq(PRODUCT_ID), any(Product.class), isNull());
         final Path productPath = PRODUCTS_PATH.resolve("CorrectProduct.json");
         final Product expectedProduct = objectMapper.readValue(productPath.toFile(), Product.class);
 
@@ -207,7 +618,11 @@ public class ProductControllerTest {
                        NO_SUCH_PRODUCT_MSG,
                        result.getResponse().getErrorMessage()
                ));
-        verify(productService).updateProductById(eq(PRODUCT_ID), argThat(argument -> argument.equals(expectedProduct)));
+        verify(productService).updateProductById(
+                eq(PRODUCT_ID),
+                argThat(argument -> argument.equals(expectedProduct)),
+                isNull()
+        );
     }
 
     @Test
@@ -219,7 +634,7 @@ public class ProductControllerTest {
                        FAIL_TO_CONVERT_MSG,
                        result.getResolvedException().getMessage()
                ));
-        verify(productService, times(0)).updateProductById(anyInt(), any(Product.class));
+        verify(productService, times(0)).updateProductById(anyInt(), any(Product.class), any());
     }
 
     @Test
@@ -235,7 +650,106 @@ public class ProductControllerTest {
                        "updateProductById.id: Id must be positive.",
                        result.getResponse().getErrorMessage()
                ));
-        verify(productService, times(0)).updateProductById(anyInt(), any(Product.class));
+        verify(productService, times(0)).updateProductById(anyInt(), any(Product.class), any());
+    }
+
+    @Test
+    public void updateProductById_ifMatch() throws Exception {
+        when(productService.updateProductById(eq(PRODUCT_ID), any(Product.class), eq(Set.of(3)))).thenReturn(4);
+        mockMvc.perform(put("/api/product/{id}", PRODUCT_ID)
+                                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                                .content(Files.readAllBytes(PRODUCTS_PATH.resolve("CorrectProduct.json")))
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNoContent())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        verify(productService).updateProductById(eq(PRODUCT_ID), any(Product.class), eq(Set.of(3)));
+    }
+
+    @Test
+    public void updateProductById_ifMatchWeakTagIgnored() throws Exception {
+        when(productService.updateProductById(eq(PRODUCT_ID), any(Product.class), eq(Set.of(5)))).thenReturn(6);
+        mockMvc.perform(put("/api/product/{id}", PRODUCT_ID)
+                                .header(HttpHeaders.IF_MATCH, "W/\"3\", \"5\"")
+                                .content(Files.readAllBytes(PRODUCTS_PATH.resolve("CorrectProduct.json")))
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNoContent());
+        verify(productService).updateProductById(eq(PRODUCT_ID), any(Product.class), eq(Set.of(5)));
+    }
+
+    @Test
+    public void updateProductById_versionMismatch() throws Exception {
+        doThrow(new ProductVersionMismatchException("Product with id = 1 is at version 4, not 3."))
+                .when(productService)
+                .updateProductById(eq(PRODUCT_ID), any(Product.class), eq(Set.of(3)));
+        mockMvc.perform(put("/api/product/{id}", PRODUCT_ID)
+                                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                                .content(Files.readAllBytes(PRODUCTS_PATH.resolve("CorrectProduct.json")))
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void updateProductById_wrongIfMatch() throws Exception {
+        mockMvc.perform(put("/api/product/{id}", PRODUCT_ID)
+                                .header(HttpHeaders.IF_MATCH, "\"3\", \"x\"")
+                                .content(Files.readAllBytes(PRODUCTS_PATH.resolve("CorrectProduct.json")))
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isPreconditionFailed());
+        verify(productService, times(0)).updateProductById(anyInt(), any(Product.class), any());
+    }
+
+    @Test
+    public void patchProductById_ok() throws Exception {
+        when(productService.patchProductById(eq(PRODUCT_ID), any(ProductPatch.class), isNull())).thenReturn(1);
+        mockMvc.perform(patch("/api/product/{id}", PRODUCT_ID)
+                                .content("{\"itemsInStock\": 7}")
+                                .contentType(ProductController.APPLICATION_MERGE_PATCH_JSON_VALUE))
+               .andExpect(status().isNoContent())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        verify(productService).patchProductById(
+                eq(PRODUCT_ID),
+                argThat(argument -> argument.getItemsInStock() == 7 && argument.getName() == null),
+                isNull()
+        );
+    }
+
+    @Test
+    public void patchProductById_negativeStock() throws Exception {
+        mockMvc.perform(patch("/api/product/{id}", PRODUCT_ID)
+                                .content("{\"itemsInStock\": -1}")
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isBadRequest());
+        verify(productService, times(0)).patchProductById(anyInt(), any(ProductPatch.class), any());
+    }
+
+    @Test
+    public void reserveItems_ok() throws Exception {
+        mockMvc.perform(post("/api/product/{id}/stock/reserve", PRODUCT_ID).param("count", "3"))
+               .andExpect(status().isNoContent());
+        verify(productService).reserveItems(PRODUCT_ID, 3);
+    }
+
+    @Test
+    public void reserveItems_insufficientStock() throws Exception {
+        doThrow(new InsufficientStockException("Product with id = 1 has fewer than 3 items in stock."))
+                .when(productService)
+                .reserveItems(PRODUCT_ID, 3);
+        mockMvc.perform(post("/api/product/{id}/stock/reserve", PRODUCT_ID).param("count", "3"))
+               .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void releaseItems_nonPositiveCount() throws Exception {
+        mockMvc.perform(post("/api/product/{id}/stock/release", PRODUCT_ID).param("count", "0"))
+               .andExpect(status().isBadRequest());
+        verify(productService, times(0)).releaseItems(anyInt(), anyInt());
+    }
+
+    @Test
+    public void adjustItemsInStock_ok() throws Exception {
+        mockMvc.perform(post("/api/product/{id}/stock/adjust", PRODUCT_ID).param("delta", "-2"))
+               .andExpect(status().isNoContent());
+        verify(productService).adjustItemsInStock(PRODUCT_ID, -2);
     }
 
     @Test
@@ -310,6 +824,6 @@ public class ProductControllerTest {
                        objectMapper.readValue(result.getResponse().getContentAsString(), ResponseErrorInfo.class)
                                    .toString()
                ));
-        verify(productService, times(0)).updateProductById(anyInt(), any(Product.class));
+        verify(productService, times(0)).updateProductById(anyInt(), any(Product.class), any());
     }
 }
@@ -0,0 +1,266 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Every product search filter must be answered from an index: the plan of the statement Hibernate generates for the
+ * filter, with the category subquery, the keyset predicates and the ORDER BY and LIMIT of the page, has to name the
+ * index, not fall back to a scan of the table. The statements are recorded with their parameters as they are
+ * executed, and explained with the same parameters.
+ * <p>
+ * A later page in id order may instead be read from the primary key, starting at the id the page continues from: the
+ * rows come in page order, so the read stops once the page is full. H2 takes that seek for the range filters.
+ */
+@DataJpaTest
+@Import(ProductIndexPlanTest.StatementRecorder.class)
+public class ProductIndexPlanTest {
+
+    private final static int PAGE_SIZE = 51;
+    private final static int LAST_ID = 10;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void clearStatements() {
+        statementRecorder.statements.clear();
+    }
+
+    @Test
+    public void brandFilter_usesIndex() throws SQLException {
+        assertPlansUse("IDX_PRODUCT_BRAND", filter -> filter.setBrandId(4));
+    }
+
+    @Test
+    public void categoryFilter_usesIndex() throws SQLException {
+        assertPlansUse("IDX_CATEGORY_PRODUCT_CATEGORY", filter -> filter.setCategoryId(List.of(1, 2)));
+    }
+
+    @Test
+    public void featuredFilter_usesIndex() throws SQLException {
+        assertPlansUse("IDX_PRODUCT_FEATURED_RATING", filter -> {
+            filter.setFeatured(true);
+            filter.setMinRating(8.0);
+        });
+    }
+
+    @Test
+    public void ratingRange_usesIndex() throws SQLException {
+        assertPlansUse("IDX_PRODUCT_RATING", filter -> {
+            filter.setMinRating(3.0);
+            filter.setMaxRating(5.0);
+        });
+    }
+
+    @Test
+    public void expirationWindow_usesIndex() throws SQLException {
+        assertPlansUse("IDX_PRODUCT_EXPIRATION", filter -> {
+            filter.setExpiresFrom(new Date(1_893_456_000_000L));
+            filter.setExpiresTo(new Date(1_896_134_400_000L));
+        });
+    }
+
+    @Test
+    public void receiptWindow_usesIndex() throws SQLException {
+        assertPlansUse("IDX_PRODUCT_RECEIPT", filter -> {
+            filter.setReceivedFrom(new Date(1_577_836_800_000L));
+            filter.setReceivedTo(new Date(1_580_515_200_000L));
+        });
+    }
+
+    @Test
+    public void inStockFilter_usesIndex() throws SQLException {
+        assertPlansUse("IDX_PRODUCT_STOCK", filter -> filter.setInStock(true));
+    }
+
+    /**
+     * The first page and a later one, in every sort order.
+     */
+    private void assertPlansUse(String index, Consumer<ProductFilter> filterSetup) throws SQLException {
+        for (ProductSortKey sortKey : ProductSortKey.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                final ProductFilter filter = new ProductFilter();
+                filterSetup.accept(filter);
+                final Specification<Product> matching = ProductSpecifications.matching(filter);
+                assertPlanUses(List.of(index), matching, sortKey, direction);
+                assertPlanUses(
+                        sortKey == ProductSortKey.ID ? List.of(index, primaryKeySeek(direction)) : List.of(index),
+                        matching.and(ProductSpecifications.after(sortKey, direction, lastValue(sortKey), LAST_ID)),
+                        sortKey,
+                        direction
+                );
+            }
+        }
+    }
+
+    private void assertPlanUses(
+            List<String> indexes,
+            Specification<Product> specification,
+            ProductSortKey sortKey,
+            Sort.Direction direction
+    ) throws SQLException {
+        statementRecorder.statements.clear();
+        productRepository.findSortKeys(specification, sortKey, direction, PAGE_SIZE);
+        Assertions.assertEquals(1, statementRecorder.statements.size());
+        final RecordedStatement statement = statementRecorder.statements.get(0);
+        final String plan = explain(statement);
+        Assertions.assertTrue(
+                indexes.stream().anyMatch(plan::contains),
+                () -> "Expected one of " + indexes + " in plan: " + plan
+        );
+        Assertions.assertFalse(plan.contains("tableScan"), () -> "Unexpected scan in plan: " + plan);
+    }
+
+    private static String primaryKeySeek(Sort.Direction direction) {
+        return "PRIMARY_KEY_1: ID " + (direction.isAscending() ? ">" : "<") + " " + LAST_ID;
+    }
+
+    private String explain(RecordedStatement statement) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql)) {
+            for (ParameterBinding binding : statement.parameters) {
+                binding.bind(explain);
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        }
+    }
+
+    private static Comparable<?> lastValue(ProductSortKey sortKey) {
+        switch (sortKey) {
+            case RATING:
+                return 4.0;
+            case ITEMS_IN_STOCK:
+                return 5;
+            default:
+                return LAST_ID;
+        }
+    }
+
+    private static class RecordedStatement {
+        private final String sql;
+        private final List<ParameterBinding> parameters;
+
+        private RecordedStatement(String sql, List<ParameterBinding> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * A call of one of the {@code set} methods of a {@link PreparedStatement}.
+     */
+    private static class ParameterBinding {
+        private final Method method;
+        private final Object[] arguments;
+
+        private ParameterBinding(Method method, Object[] arguments) {
+            this.method = method;
+            this.arguments = arguments;
+        }
+
+        private void bind(PreparedStatement statement) throws SQLException {
+            invoke(method, statement, arguments);
+        }
+    }
+
+    /**
+     * Wraps the data source so the queries executed through it are recorded with the parameters they were bound to.
+     */
+    @TestConfiguration
+    static class StatementRecorder implements BeanPostProcessor {
+
+        private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource)) {
+                return bean;
+            }
+            return proxy(DataSource.class, (method, arguments) -> {
+                final Object result = invoke(method, bean, arguments);
+                return result instanceof Connection ? connection((Connection) result) : result;
+            });
+        }
+
+        private Connection connection(Connection connection) {
+            return proxy(Connection.class, (method, arguments) -> {
+                final Object result = invoke(method, connection, arguments);
+                if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                    return statement((PreparedStatement) result, (String) arguments[0]);
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement statement(PreparedStatement statement, String sql) {
+            final List<ParameterBinding> parameters = new ArrayList<>();
+            return proxy(PreparedStatement.class, (method, arguments) -> {
+                if (method.getName().startsWith("set") && arguments != null && arguments.length > 1
+                    && arguments[0] instanceof Integer) {
+                    parameters.add(new ParameterBinding(method, arguments));
+                } else if (method.getName().equals("executeQuery") && arguments == null) {
+                    statements.add(new RecordedStatement(sql, List.copyOf(parameters)));
+                }
+                return invoke(method, statement, arguments);
+            });
+        }
+    }
+
+    private interface Invocation {
+        Object invoke(Method method, Object[] arguments) throws SQLException;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Invocation invocation) {
+        final InvocationHandler handler = (proxy, method, arguments) -> invocation.invoke(method, arguments);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] arguments) throws SQLException {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProductStatementCountTest {
+
+    private final static Integer PRODUCT_ID = 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void clearStatistics() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void getProducts_singleStatement() throws Exception {
+        final long productCount = productRepository.count();
+        statistics.clear();
+        mockMvc.perform(get("/api/product/all"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(productCount));
+        assertStatementCount(1);
+    }
+
+    /**
+     * The view, and its version again once cached, then nothing until a write evicts it.
+     */
+    @Test
+    public void getProductById_viewAndVersionThenCached() throws Exception {
+        mockMvc.perform(get("/api/product/{id}", PRODUCT_ID))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.brand.name").isNotEmpty())
+               .andExpect(jsonPath("$.categories.length()").value(2));
+        assertStatementCount(2);
+        Assertions.assertEquals(0, statistics.getEntityLoadCount(), "Reads should not load entities");
+        Assertions.assertEquals(0, statistics.getCollectionLoadCount(), "Reads should not load entities");
+
+        statistics.clear();
+        mockMvc.perform(get("/api/product/{id}", PRODUCT_ID)).andExpect(status().isOk());
+        assertStatementCount(0);
+    }
+
+    @Test
+    public void getProductPage_idsThenProducts() throws Exception {
+        mockMvc.perform(get("/api/product/page").param("size", "20"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.products.length()").value(20));
+        assertStatementCount(2);
+    }
+
+    @Test
+    public void streamProducts_singleStatement() throws Exception {
+        final long productCount = productRepository.count();
+        statistics.clear();
+        final MvcResult asyncResult = mockMvc.perform(get("/api/product/stream")).andReturn();
+        mockMvc.perform(asyncDispatch(asyncResult))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(productCount));
+        assertStatementCount(1);
+    }
+
+    @Test
+    public void patchProductById_readAndSingleUpdate() throws Exception {
+        mockMvc.perform(patch("/api/product/{id}", 3)
+                                .content("{\"itemsInStock\": 5}")
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNoContent())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        Assertions.assertEquals(1, statistics.getEntityUpdateCount());
+        assertStatementCount(2);
+    }
+
+    @Test
+    public void updateProductById_categoriesDiffed() throws Exception {
+        final String product = "{\"name\": \"J.P. Chenet\", \"rating\": 4, \"brand\": {\"id\": 4}, \"categories\": "
+                               + "[{\"id\": 1, \"name\": \"Drinks\"}, {\"id\": 3, \"name\": \"Sparkling\"}]}";
+        mockMvc.perform(put("/api/product/{id}", 2).content(product).contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNoContent());
+        Assertions.assertEquals(0, statistics.getCollectionRecreateCount());
+        Assertions.assertEquals(1, statistics.getCollectionUpdateCount());
+        mockMvc.perform(get("/api/product/{id}", 2))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.categories[*].id", containsInAnyOrder(1, 3)));
+    }
+
+    @Test
+    public void updateProductById_staleIfMatch() throws Exception {
+        mockMvc.perform(patch("/api/product/{id}", 4)
+                                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                                .content("{\"rating\": 5}")
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNoContent());
+        mockMvc.perform(patch("/api/product/{id}", 4)
+                                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                                .content("{\"rating\": 6}")
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/product/{id}", 4)
+                                .header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                                .content("{\"rating\": 6}")
+                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/product/{id}", 4))
+               .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+               .andExpect(jsonPath("$.rating").value(5.0));
+    }
+
+    private void assertStatementCount(long expected) {
+        Assertions.assertEquals(
+                expected,
+                statistics.getPrepareStatementCount(),
+                "Unexpected number of statements, categories or brands are loaded one by one again"
+        );
+    }
+}
@@ -0,0 +1,57 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Views replace the entities in every read, so they have to hold and write exactly what the entities do.
+ */
+@DataJpaTest
+@AutoConfigureJson
+public class ProductViewRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void views_matchEntities() {
+        final List<ProductView> expected = productRepository.findAll()
+                                                            .stream()
+                                                            .map(ProductView::of)
+                                                            .collect(Collectors.toList());
+        final List<Integer> ids = expected.stream().map(ProductView::getId).collect(Collectors.toList());
+        Assertions.assertEquals(expected, productRepository.findAllViews());
+        Assertions.assertEquals(expected, productRepository.findViewsByIdIn(ids));
+        Assertions.assertEquals(expected.get(0), productRepository.findViewById(ids.get(0)).orElseThrow());
+
+        final List<ProductView> streamed = new ArrayList<>();
+        productRepository.forEachView(2, streamed::add);
+        Assertions.assertEquals(expected, streamed);
+    }
+
+    @Test
+    public void view_writtenAsEntity() throws Exception {
+        for (Product product : productRepository.findAll()) {
+            final byte[] view = objectMapper.writeValueAsBytes(productRepository.findViewById(product.getId())
+                                                                                .orElseThrow());
+            Assertions.assertEquals(
+                    objectMapper.readTree(objectMapper.writeValueAsBytes(product)).size(),
+                    objectMapper.readTree(view).size()
+            );
+            Assertions.assertEquals(objectMapper.readValue(view, Product.class), product);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sparkequation.spring.trial.api.repository;
+
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.model.Brand;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReferenceDataCacheTest {
+
+    private final static String STORE_BY_REFERENCE_KEY = "store-by-reference";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void evictCaches() throws Exception {
+        mockMvc.perform(delete("/api/cache")).andExpect(status().isNoContent());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Regions missing from application.conf would be created by Hibernate with the store-by-value default of JCache,
+     * which hands out copies.
+     */
+    @Test
+    public void regions_storeByReference() {
+        final javax.cache.CacheManager regions = Caching.getCachingProvider().getCacheManager();
+        Assertions.assertNotEquals(0, statistics.getSecondLevelCacheRegionNames().length);
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            final javax.cache.Cache<Object, Object> cache = regions.getCache(region);
+            final Object value = new Object();
+            cache.put(STORE_BY_REFERENCE_KEY, value);
+            Assertions.assertSame(value, cache.getAndRemove(STORE_BY_REFERENCE_KEY), region);
+        }
+    }
+
+    @Test
+    public void findFirstByName_queryCached() {
+        final String name = categoryRepository.findById(1).orElseThrow().getName();
+        cacheManager.getCache(CacheConfig.CATEGORIES).clear();
+        statistics.clear();
+
+        categoryRepository.findFirstByName(name);
+        cacheManager.getCache(CacheConfig.CATEGORIES).clear();
+        categoryRepository.findFirstByName(name);
+
+        Assertions.assertEquals(1, statistics.getQueryCacheMissCount());
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findFirstByNameAndCountry_invalidatedByInsert() {
+        brandRepository.findFirstByNameAndCountry("Cached Brand", "Nowhere");
+        final Brand brand = new Brand();
+        brand.setName("Cached Brand");
+        brand.setCountry("Nowhere");
+        brandRepository.save(brand);
+        statistics.clear();
+
+        Assertions.assertEquals(
+                brand.getId(),
+                brandRepository.findFirstByNameAndCountry("Cached Brand", "Nowhere").orElseThrow().getId()
+        );
+        Assertions.assertEquals(0, statistics.getQueryCacheHitCount());
+    }
+}
@@ -0,0 +1,56 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.service.exception.ProductVersionMismatchException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Set;
+
+@SpringBootTest
+public class CatalogChangeCounterTest {
+
+    private final static int PRODUCT_ID = 14;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OutboxPollingTransport outboxPollingTransport;
+
+    @Test
+    public void getCatalogStamp_changesOnCommit() {
+        final CatalogStamp initial = productService.getCatalogStamp();
+
+        productService.adjustItemsInStock(PRODUCT_ID, 1);
+        final CatalogStamp adjusted = productService.getCatalogStamp();
+        Assertions.assertNotEquals(initial.getETag(), adjusted.getETag());
+        Assertions.assertTrue(adjusted.getLastModified() >= initial.getLastModified());
+        Assertions.assertTrue(adjusted.getLastModified() > System.currentTimeMillis() - 1000);
+        Assertions.assertEquals(0, adjusted.getLastModified() % 1000);
+
+        // Read past the change, which restamps the catalog once more, so only the failed patch could change it.
+        outboxPollingTransport.poll();
+        final CatalogStamp applied = productService.getCatalogStamp();
+        final ProductPatch patch = new ProductPatch();
+        patch.setItemsInStock(1);
+        Assertions.assertThrows(
+                ProductVersionMismatchException.class,
+                () -> productService.patchProductById(PRODUCT_ID, patch, Set.of(-1))
+        );
+        Assertions.assertEquals(applied, productService.getCatalogStamp());
+    }
+
+    @Test
+    public void getProductVersion_matchesProduct() {
+        productService.adjustItemsInStock(PRODUCT_ID, 1);
+        Assertions.assertEquals(
+                productService.getProductById(PRODUCT_ID).getVersion(),
+                productService.getProductVersion(PRODUCT_ID)
+        );
+        Assertions.assertNull(productService.getProductVersion(Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,176 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.ApiApplication;
+import com.sparkequation.spring.trial.api.TestProducts;
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.CatalogStamp;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.repository.BrandRepository;
+import com.sparkequation.spring.trial.api.repository.CategoryRepository;
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Two nodes in one JVM on one in-memory database: the first creates the schema, the second only connects to it.
+ * Reads on the second node are cached there, so it only sees a change of the first one if the change was relayed.
+ * Hibernate's caches are per JCache manager, one per URI in the JVM: the second node names one of its own, as if it
+ * ran in a process of its own.
+ */
+public class ClusterInvalidationTest {
+
+    private final static String DATABASE = "--spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1";
+    private final static long TIMEOUT_MILLIS = 10_000;
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    public static void startNodes() {
+        first = start("--api.cluster.node-id=first");
+        second = start(
+                "--api.cluster.node-id=second",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.datasource.initialization-mode=never",
+                "--spring.jpa.properties.hibernate.javax.cache.uri=file:/second-node"
+        );
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    public void changes_reachOtherNode() throws InterruptedException {
+        final ProductService writer = first.getBean(ProductService.class);
+        final ProductService reader = second.getBean(ProductService.class);
+        final Product product = product();
+        writer.addProduct(product);
+        final int id = product.getId();
+        awaitTrue(() -> reader.searchProductsByName("Clustered", null).size() == 1);
+        Assertions.assertEquals("Clustered product", reader.getProductById(id).getName());
+
+        final CatalogStamp stamp = reader.getCatalogStamp();
+        final ProductPatch patch = new ProductPatch();
+        patch.setName("Relayed product");
+        writer.patchProductById(id, patch, null);
+        awaitTrue(() -> "Relayed product".equals(reader.getProductById(id).getName()));
+        final ProductView relayed = reader.getProductById(id);
+        Assertions.assertEquals(writer.getProductById(id), relayed);
+        Assertions.assertEquals(1, reader.searchProductsByName("Relayed", null).size());
+        Assertions.assertTrue(reader.searchProductsByName("Clustered", null).isEmpty());
+        Assertions.assertNotEquals(stamp, reader.getCatalogStamp());
+
+        writer.adjustItemsInStock(id, 3);
+        awaitTrue(() -> reader.getProductById(id).getItemsInStock() == 8);
+
+        writer.deleteProductById(id);
+        awaitTrue(() -> {
+            try {
+                reader.getProductById(id);
+                return false;
+            } catch (NoSuchProductException e) {
+                return true;
+            }
+        });
+        Assertions.assertNull(reader.getProductVersion(id));
+        awaitTrue(() -> writer.getCatalogStamp().getETag().equals(reader.getCatalogStamp().getETag()));
+    }
+
+    @Test
+    public void createdReferenceData_foundOnOtherNode() throws InterruptedException {
+        final BrandRepository brands = second.getBean(BrandRepository.class);
+        final CategoryRepository categories = second.getBean(CategoryRepository.class);
+        // Cached on the second node as not found.
+        Assertions.assertTrue(brands.findFirstByNameAndCountry("Clustered brand", "Nowhere").isEmpty());
+        Assertions.assertTrue(categories.findFirstByName("Clustered category").isEmpty());
+
+        final Product product = referencingNewData("Created on first");
+        first.getBean(ProductService.class).addProduct(product);
+        awaitTrue(() -> brands.findFirstByNameAndCountry("Clustered brand", "Nowhere").isPresent());
+        awaitTrue(() -> categories.findFirstByName("Clustered category").isPresent());
+
+        final Product copy = referencingNewData("Created on second");
+        second.getBean(ProductService.class).addProduct(copy);
+        try {
+            Assertions.assertEquals(product.getBrand().getId(), copy.getBrand().getId());
+            Assertions.assertEquals(product.getCategories(), copy.getCategories());
+        } finally {
+            first.getBean(ProductService.class).deleteProductById(product.getId());
+            first.getBean(ProductService.class).deleteProductById(copy.getId());
+        }
+    }
+
+    @Test
+    public void ownChanges_areNotReceived() {
+        final ProductService writer = first.getBean(ProductService.class);
+        final OutboxPollingTransport transport = first.getBean(OutboxPollingTransport.class);
+        final Product product = product();
+        writer.addProduct(product);
+        final int[] received = new int[1];
+        transport.receive(changes -> received[0] += changes.size());
+        try {
+            transport.poll();
+            Assertions.assertEquals(0, received[0]);
+        } finally {
+            transport.receive(first.getBean(ClusterInvalidator.class)::apply);
+            writer.deleteProductById(product.getId());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String... arguments) {
+        final String[] common = {
+                DATABASE,
+                "--spring.h2.console.enabled=false",
+                "--api.cluster.poll-interval=50",
+                "--logging.level.root=WARN"
+        };
+        final String[] all = new String[common.length + arguments.length];
+        System.arraycopy(common, 0, all, 0, common.length);
+        System.arraycopy(arguments, 0, all, common.length, arguments.length);
+        return new SpringApplicationBuilder(ApiApplication.class).web(WebApplicationType.NONE).run(all);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "not relayed in time");
+            Thread.sleep(20);
+        }
+    }
+
+    private static Product referencingNewData(String name) {
+        final Product product = product();
+        product.setName(name);
+        final Brand brand = new Brand();
+        brand.setName("Clustered brand");
+        brand.setCountry("Nowhere");
+        product.setBrand(brand);
+        final Category category = new Category();
+        category.setName("Clustered category");
+        product.setCategories(new HashSet<>(Set.of(category)));
+        return product;
+    }
+
+    private static Product product() {
+        final Product product = TestProducts.product("Clustered product", 4.0);
+        product.setItemsInStock(5);
+        product.setReceiptDate(new Date());
+        return product;
+    }
+}
@@ -0,0 +1,111 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.sparkequation.spring.trial.api.TestProducts.product;
+
+@SpringBootTest
+public class FeaturedProductIndexTest {
+
+    private final static String FEATURED_IDS = "SELECT ID FROM PRODUCT WHERE ISFEATURED OR RATING > 8 "
+                                               + "ORDER BY RATING DESC, ID DESC";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private FeaturedProductIndex featuredProductIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void getFeaturedProducts_followsWrites() {
+        final Product product = product("Featured later", 5);
+        productService.addProduct(product);
+        Assertions.assertFalse(featuredIds().contains(product.getId()));
+
+        final ProductPatch patch = new ProductPatch();
+        patch.setRating(9.5);
+        productService.patchProductById(product.getId(), patch, null);
+        Assertions.assertTrue(featuredIds().contains(product.getId()));
+
+        productService.adjustItemsInStock(product.getId(), 7);
+        Assertions.assertEquals(
+                7,
+                featuredProducts().stream()
+                                  .filter(featured -> featured.getId() == product.getId())
+                                  .findFirst()
+                                  .orElseThrow()
+                                  .getItemsInStock()
+        );
+
+        patch.setRating(3.0);
+        patch.setFeatured(false);
+        productService.patchProductById(product.getId(), patch, null);
+        Assertions.assertFalse(featuredIds().contains(product.getId()));
+
+        patch.setFeatured(true);
+        productService.patchProductById(product.getId(), patch, null);
+        Assertions.assertTrue(featuredIds().contains(product.getId()));
+
+        productService.deleteProductById(product.getId());
+        Assertions.assertFalse(featuredIds().contains(product.getId()));
+    }
+
+    @Test
+    public void onProductChanged_lateSaveAfterDelete() {
+        final Product product = product("Deleted while featured", 9.7);
+        productService.addProduct(product);
+        productService.deleteProductById(product.getId());
+
+        featuredProductIndex.onProductChanged(ProductChangedEvent.saved(product));
+
+        Assertions.assertFalse(featuredIds().contains(product.getId()));
+    }
+
+    @Test
+    public void getFeaturedProducts_matchesDatabase() {
+        productService.addProduct(product("Featured first", 9.9));
+        productService.addProduct(product("Featured second", 9.9));
+        productService.addProduct(product("Featured third", 8.5));
+        productService.addProduct(product("Not featured", 8));
+
+        final List<Integer> expected = jdbcTemplate.queryForList(FEATURED_IDS, Integer.class);
+        Assertions.assertEquals(expected, featuredIds());
+
+        featuredProductIndex.rebuild();
+        Assertions.assertEquals(expected, featuredIds());
+        Assertions.assertEquals(expected.size(), featuredProductIndex.size());
+    }
+
+    private List<Integer> featuredIds() {
+        return featuredProducts().stream().map(ProductView::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Walks all the pages two products at a time.
+     */
+    private List<ProductView> featuredProducts() {
+        final List<ProductView> products = new ArrayList<>();
+        String token = null;
+        do {
+            final ProductPage page = productService.getFeaturedProducts(token, 2);
+            products.addAll(page.getProducts());
+            token = page.getNextToken();
+        } while (token != null);
+        return products;
+    }
+}
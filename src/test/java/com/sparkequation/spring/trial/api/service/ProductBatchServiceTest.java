@@ -0,0 +1,145 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBatchError;
+import com.sparkequation.spring.trial.api.model.ProductBatchResult;
+import com.sparkequation.spring.trial.api.repository.ProductRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * On a database of its own, like {@link ProductBulkDeleteTest}: recreating the shared one would leave the contexts of
+ * the other tests with stale ids and in-memory indexes.
+ */
+@SpringBootTest(properties = {
+        "api.product.batch.chunk-size=2",
+        "spring.datasource.url=jdbc:h2:mem:batch;DB_CLOSE_DELAY=-1"
+})
+public class ProductBatchServiceTest {
+
+    private final static String NEW_BRAND = "Batch Brand";
+    private final static String NEW_CATEGORY = "Batch Category";
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void addProducts_partialFailure() {
+        final long productCount = productRepository.count();
+        final List<Product> products = List.of(
+                product("First", newBrand(), newCategory()),
+                product("", newBrand(), newCategory()),
+                product("Second", newBrand(), existingCategory(1)),
+                product("Third", existingBrand(4), newCategory()),
+                product("Fourth", existingBrand(404), existingCategory(1))
+        );
+
+        final ProductBatchResult result = productBatchService.addProducts(products);
+
+        Assertions.assertEquals(5, result.getReceived());
+        Assertions.assertEquals(3, result.getInserted());
+        Assertions.assertEquals(
+                List.of(1, 4),
+                result.getFailures().stream().map(ProductBatchError::getIndex).collect(Collectors.toList())
+        );
+        Assertions.assertEquals(productCount + 3, productRepository.count());
+        Assertions.assertEquals(
+                1,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BRAND WHERE NAME = ?", Integer.class, NEW_BRAND)
+        );
+        Assertions.assertEquals(
+                1,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CATEGORY WHERE NAME = ?", Integer.class, NEW_CATEGORY)
+        );
+    }
+
+    @Test
+    public void addProducts_ndjsonStream() throws Exception {
+        final long productCount = productRepository.count();
+        final String upload = String.join(
+                "\n",
+                "{\"name\":\"Streamed 1\",\"brand\":{\"id\":1},\"categories\":[{\"id\":1}]}",
+                "{\"name\":\"Streamed 2\",\"rating\":\"high\",\"brand\":{\"id\":1},\"categories\":[{\"id\":1}]}",
+                "{\"name\":\"Streamed 3\",\"brand\":{\"id\":1},\"categories\":[]}",
+                "{\"name\":\"Streamed 4\",\"brand\":{\"id\":2},\"categories\":[{\"id\":3}]}",
+                "{\"name\":\"Streamed 5\",\"brand\":{\"id\":2},\"categories\":[{\"id\":3}]}"
+        );
+
+        final ProductBatchResult result = productBatchService.addProducts(
+                new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8))
+        );
+
+        Assertions.assertEquals(5, result.getReceived());
+        Assertions.assertEquals(3, result.getInserted());
+        Assertions.assertEquals(
+                List.of(1, 2),
+                result.getFailures().stream().map(ProductBatchError::getIndex).collect(Collectors.toList())
+        );
+        Assertions.assertEquals(productCount + 3, productRepository.count());
+    }
+
+    @Test
+    public void addProducts_jsonArrayStream() throws Exception {
+        final long productCount = productRepository.count();
+        final String upload = "[{\"name\":\"Array 1\",\"brand\":{\"id\":1},\"categories\":[{\"id\":1}]},"
+                              + "{\"name\":\"Array 2\",\"brand\":{\"id\":1},\"categories\":[{\"id\":2}]}]";
+
+        final ProductBatchResult result = productBatchService.addProducts(
+                new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8))
+        );
+
+        Assertions.assertEquals(new ProductBatchResult(2, 2, List.of()), result);
+        Assertions.assertEquals(productCount + 2, productRepository.count());
+    }
+
+    private static Product product(String name, Brand brand, Category category) {
+        final Product product = new Product();
+        product.setName(name);
+        product.setRating(5);
+        product.setBrand(brand);
+        product.setCategories(Set.of(category));
+        return product;
+    }
+
+    private static Brand newBrand() {
+        final Brand brand = new Brand();
+        brand.setName(NEW_BRAND);
+        brand.setCountry("Nowhere");
+        return brand;
+    }
+
+    private static Brand existingBrand(int id) {
+        final Brand brand = new Brand();
+        brand.setId(id);
+        return brand;
+    }
+
+    private static Category newCategory() {
+        final Category category = new Category();
+        category.setName(NEW_CATEGORY);
+        return category;
+    }
+
+    private static Category existingCategory(int id) {
+        final Category category = new Category();
+        category.setId(id);
+        return category;
+    }
+}
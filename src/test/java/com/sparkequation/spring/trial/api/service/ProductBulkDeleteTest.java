@@ -0,0 +1,170 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Brand;
+import com.sparkequation.spring.trial.api.model.Category;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductBulkDeleteProgress;
+import com.sparkequation.spring.trial.api.model.ProductSelection;
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@SpringBootTest(properties = {
+        "api.product.batch.delete-chunk-size=2",
+        "spring.datasource.url=jdbc:h2:mem:bulkdelete;DB_CLOSE_DELAY=-1"
+})
+public class ProductBulkDeleteTest {
+
+    private final static int EXISTING_BRAND = 4;
+    private final static int EXISTING_CATEGORY = 1;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    public void deleteProducts_byBrand_archivedInChunks() {
+        final List<Integer> ids = addProducts(5, newBrand("Bulk Brand"), existingCategory());
+        final int kept = addProducts(1, existingBrand(), existingCategory()).get(0);
+        // Cached, so a stale product cache would still return it.
+        productService.getProductById(ids.get(0));
+        final ProductSelection selection = new ProductSelection();
+        selection.setBrandId(brandOf(ids.get(0)));
+        final List<ProductBulkDeleteProgress> progress = new ArrayList<>();
+
+        final ProductBulkDeleteProgress result = productBatchService.deleteProducts(selection, true, progress::add);
+
+        Assertions.assertEquals(new ProductBulkDeleteProgress(3, 5, 5, true), result);
+        Assertions.assertEquals(
+                List.of(
+                        new ProductBulkDeleteProgress(1, 2, 2, false),
+                        new ProductBulkDeleteProgress(2, 4, 4, false),
+                        new ProductBulkDeleteProgress(3, 5, 5, false),
+                        result
+                ),
+                progress
+        );
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM PRODUCT WHERE ID IN (:ids)", ids));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM CATEGORY_PRODUCT WHERE PRODUCTID IN (:ids)", ids));
+        Assertions.assertEquals(5, count("SELECT COUNT(*) FROM PRODUCTARCHIVE WHERE ID IN (:ids)", ids));
+        Assertions.assertEquals(
+                5,
+                count("SELECT COUNT(*) FROM CATEGORY_PRODUCTARCHIVE WHERE PRODUCTID IN (:ids)", ids)
+        );
+        Assertions.assertEquals(
+                5,
+                count("SELECT COUNT(*) FROM PRODUCTCHANGE WHERE CHANGETYPE = 'DELETED' AND PRODUCTID IN (:ids)", ids)
+        );
+        Assertions.assertThrows(NoSuchProductException.class, () -> productService.getProductById(ids.get(0)));
+        Assertions.assertEquals(kept, productService.getProductById(kept).getId());
+    }
+
+    @Test
+    public void deleteProducts_byIds_withoutArchive() {
+        final List<Integer> ids = addProducts(3, existingBrand(), existingCategory());
+        final ProductSelection selection = new ProductSelection();
+        selection.setIds(List.of(ids.get(2), ids.get(0), ids.get(2), Integer.MAX_VALUE, ids.get(1)));
+
+        final ProductBulkDeleteProgress result = productBatchService.deleteProducts(selection, false, progress -> {
+        });
+
+        Assertions.assertEquals(new ProductBulkDeleteProgress(2, 3, 0, true), result);
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM PRODUCT WHERE ID IN (:ids)", ids));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM PRODUCTARCHIVE WHERE ID IN (:ids)", ids));
+    }
+
+    @Test
+    public void deleteProducts_byCategory() {
+        final Category category = new Category();
+        category.setName("Bulk Category");
+        final List<Integer> ids = addProducts(3, existingBrand(), category);
+        final int kept = addProducts(1, existingBrand(), existingCategory()).get(0);
+        final ProductSelection selection = new ProductSelection();
+        selection.setCategoryId(category.getId());
+
+        final ProductBulkDeleteProgress result = productBatchService.deleteProducts(selection, true, progress -> {
+        });
+
+        Assertions.assertEquals(new ProductBulkDeleteProgress(2, 3, 3, true), result);
+        Assertions.assertEquals(3, count("SELECT COUNT(*) FROM PRODUCTARCHIVE WHERE ID IN (:ids)", ids));
+        Assertions.assertEquals(kept, productService.getProductById(kept).getId());
+    }
+
+    @Test
+    public void deleteProducts_byExpiration() {
+        final List<Integer> ids = addProducts(2, existingBrand(), existingCategory());
+        final int kept = addProducts(1, existingBrand(), existingCategory()).get(0);
+        // Validation only accepts future dates, so time passes in the database.
+        jdbcTemplate.update(
+                "UPDATE PRODUCT SET EXPIRATIONDATE = :expiredAt WHERE ID IN (:ids)",
+                new MapSqlParameterSource("ids", ids)
+                        .addValue("expiredAt", new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)))
+        );
+        final ProductSelection selection = new ProductSelection();
+        selection.setExpiresBy(new Date());
+
+        final ProductBulkDeleteProgress result = productBatchService.deleteProducts(selection, true, progress -> {
+        });
+
+        Assertions.assertEquals(new ProductBulkDeleteProgress(1, 2, 2, true), result);
+        Assertions.assertEquals(2, count("SELECT COUNT(*) FROM PRODUCTARCHIVE WHERE ID IN (:ids)", ids));
+        Assertions.assertEquals(kept, productService.getProductById(kept).getId());
+    }
+
+    private List<Integer> addProducts(int count, Brand brand, Category category) {
+        final List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final Product product = new Product();
+            product.setName("Bulk " + i);
+            product.setExpirationDate(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(60)));
+            product.setBrand(brand);
+            product.setCategories(Set.of(category));
+            productService.addProduct(product);
+            ids.add(product.getId());
+        }
+        return ids.stream().sorted().collect(Collectors.toList());
+    }
+
+    private int brandOf(int id) {
+        return productService.getProductById(id).getBrand().getId();
+    }
+
+    private int count(String query, List<Integer> ids) {
+        return jdbcTemplate.queryForObject(query, new MapSqlParameterSource("ids", ids), Integer.class);
+    }
+
+    private static Brand newBrand(String name) {
+        final Brand brand = new Brand();
+        brand.setName(name);
+        brand.setCountry("Nowhere");
+        return brand;
+    }
+
+    private static Brand existingBrand() {
+        final Brand brand = new Brand();
+        brand.setId(EXISTING_BRAND);
+        return brand;
+    }
+
+    private static Category existingCategory() {
+        final Category category = new Category();
+        category.setId(EXISTING_CATEGORY);
+        return category;
+    }
+}
@@ -0,0 +1,94 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.config.CacheConfig;
+import com.sparkequation.spring.trial.api.model.CategoryView;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.sparkequation.spring.trial.api.TestProducts.product;
+
+@SpringBootTest
+public class ProductCacheTest {
+
+    private final static int PRODUCT_ID = 19;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache products;
+
+    @BeforeEach
+    public void clearCache() {
+        products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        products.clear();
+    }
+
+    @Test
+    public void getProductById_cachedUntilWrite() {
+        final List<Consumer<Integer>> writes = List.of(
+                id -> productService.patchProductById(id, unchangedPatch(id), null),
+                id -> productService.updateProductById(id, unchanged(id), null),
+                id -> productService.adjustItemsInStock(id, 1),
+                id -> productService.releaseItems(id, 1),
+                id -> productService.reserveItems(id, 1)
+        );
+        for (Consumer<Integer> write : writes) {
+            final ProductView read = productService.getProductById(PRODUCT_ID);
+            Assertions.assertSame(read, productService.getProductById(PRODUCT_ID));
+
+            write.accept(PRODUCT_ID);
+
+            Assertions.assertNull(products.get(PRODUCT_ID));
+        }
+    }
+
+    @Test
+    public void getProductById_deleteEvicts() {
+        final Product product = product("Cached product", 3);
+        product.setReceiptDate(new Date());
+        productService.addProduct(product);
+        productService.getProductById(product.getId());
+
+        productService.deleteProductById(product.getId());
+
+        Assertions.assertNull(products.get(product.getId()));
+    }
+
+    private ProductPatch unchangedPatch(int id) {
+        final ProductPatch patch = new ProductPatch();
+        patch.setRating(productService.getProductById(id).getRating());
+        return patch;
+    }
+
+    /**
+     * The product as it is, written again.
+     */
+    private Product unchanged(int id) {
+        final ProductView current = productService.getProductById(id);
+        final Product product = product(
+                current.getName(),
+                current.getBrand().getId(),
+                current.getCategories().stream().mapToInt(CategoryView::getId).toArray()
+        );
+        product.setRating(current.getRating());
+        product.setItemsInStock(current.getItemsInStock());
+        product.setReceiptDate(current.getReceiptDate());
+        product.setExpirationDate(current.getExpirationDate());
+        return product;
+    }
+}
@@ -0,0 +1,182 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.TestProducts;
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductFilter;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * On a database of its own: recreating the shared one would leave the in-memory indexes of the other test contexts
+ * behind it.
+ */
+@SpringBootTest(properties = {
+        "api.product.read-mode=snapshot",
+        "spring.datasource.url=jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1"
+})
+public class ProductCatalogSnapshotTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductServiceImpl databaseProductService;
+
+    @Autowired
+    private ProductCatalogSnapshot catalogSnapshot;
+
+    @Test
+    public void reads_matchDatabase() {
+        final List<Product> added = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            added.add(product("Snapshot product " + i, i % 5 + 0.5, i % 3, i * 4));
+            productService.addProduct(added.get(i));
+        }
+
+        Assertions.assertTrue(productService instanceof SnapshotProductService);
+        Assertions.assertEquals(databaseProductService.getProducts(), productService.getProducts());
+        Assertions.assertEquals(
+                pages(token -> databaseProductService.getProductPage(token, 7)),
+                pages(token -> productService.getProductPage(token, 7))
+        );
+        for (ProductFilter filter : filters()) {
+            Assertions.assertEquals(
+                    pages(token -> databaseProductService.searchProducts(withToken(filter, token))),
+                    pages(token -> productService.searchProducts(withToken(filter, token))),
+                    () -> "sort " + filter.getSort() + " " + filter.getDirection()
+            );
+        }
+        Assertions.assertEquals(
+                pages(token -> databaseProductService.getExpiringProducts(60, token, 3)),
+                pages(token -> productService.getExpiringProducts(60, token, 3))
+        );
+        final List<ProductView> streamed = new ArrayList<>();
+        productService.forEachProduct(streamed::add);
+        Assertions.assertEquals(databaseProductService.getProducts(), streamed);
+
+        added.forEach(product -> productService.deleteProductById(product.getId()));
+        Assertions.assertEquals(databaseProductService.getProducts(), productService.getProducts());
+    }
+
+    @Test
+    public void reads_followWrites() {
+        final Product product = product("Snapshot written", 4, 1, 10);
+        productService.addProduct(product);
+        final int id = product.getId();
+        Assertions.assertEquals(databaseProductService.getProductById(id), productService.getProductById(id));
+
+        final ProductPatch patch = new ProductPatch();
+        patch.setRating(9.0);
+        patch.setExpirationDate(Date.from(Instant.now().plus(90, ChronoUnit.DAYS)));
+        productService.patchProductById(id, patch, null);
+        productService.adjustItemsInStock(id, 5);
+        final ProductView written = productService.getProductById(id);
+        Assertions.assertEquals(9.0, written.getRating());
+        Assertions.assertEquals(15, written.getItemsInStock());
+        Assertions.assertEquals(databaseProductService.getProductById(id), written);
+        Assertions.assertEquals(databaseProductService.getProductVersion(id), productService.getProductVersion(id));
+
+        final int size = catalogSnapshot.size();
+        catalogSnapshot.rebuild();
+        Assertions.assertEquals(size, catalogSnapshot.size());
+        Assertions.assertEquals(written, productService.getProductById(id));
+
+        productService.deleteProductById(id);
+        Assertions.assertThrows(NoSuchProductException.class, () -> productService.getProductById(id));
+        Assertions.assertNull(productService.getProductVersion(id));
+        Assertions.assertEquals(databaseProductService.getProducts(), productService.getProducts());
+    }
+
+    @Test
+    public void onProductChanged_lateSaveAfterDelete() {
+        final Product product = product("Snapshot deleted", 3, 1, 2);
+        productService.addProduct(product);
+        productService.deleteProductById(product.getId());
+
+        catalogSnapshot.onProductChanged(ProductChangedEvent.saved(product));
+
+        Assertions.assertNull(productService.getProductVersion(product.getId()));
+    }
+
+    private static List<ProductFilter> filters() {
+        final List<ProductFilter> filters = new ArrayList<>();
+        for (String sort : List.of("id", "rating", "itemsInStock")) {
+            for (String direction : List.of("asc", "desc")) {
+                final ProductFilter filter = new ProductFilter();
+                filter.setSort(sort);
+                filter.setDirection(direction);
+                filter.setSize(4);
+                filters.add(filter);
+
+                final ProductFilter narrowed = new ProductFilter();
+                narrowed.setSort(sort);
+                narrowed.setDirection(direction);
+                narrowed.setSize(2);
+                narrowed.setCategoryId(List.of(2, 3));
+                narrowed.setMinRating(1.0);
+                narrowed.setInStock(true);
+                narrowed.setExpiresFrom(new Date());
+                filters.add(narrowed);
+            }
+        }
+        final ProductFilter byBrand = new ProductFilter();
+        byBrand.setBrandId(4);
+        byBrand.setFeatured(false);
+        byBrand.setMaxRating(4.5);
+        filters.add(byBrand);
+        final ProductFilter unknownBrand = new ProductFilter();
+        unknownBrand.setBrandId(1000);
+        filters.add(unknownBrand);
+        return filters;
+    }
+
+    private static ProductFilter withToken(ProductFilter filter, String token) {
+        filter.setToken(token);
+        return filter;
+    }
+
+    /**
+     * Every page with its token, walking the tokens to the end.
+     */
+    private static List<Object> pages(Function<String, ProductPage> reader) {
+        final List<Object> pages = new ArrayList<>();
+        String token = null;
+        do {
+            final ProductPage page = reader.apply(token);
+            pages.add(page.getProducts());
+            pages.add(page.getNextToken());
+            token = page.getNextToken();
+        } while (token != null);
+        return pages;
+    }
+
+    private static Product product(String name, double rating, int categoryOffset, int itemsInStock) {
+        final int[] categoryIds = new int[categoryOffset + 1];
+        for (int i = 0; i <= categoryOffset; i++) {
+            categoryIds[i] = i + 1 + categoryOffset;
+        }
+        final Product product = TestProducts.product(name, rating > 3 ? 4 : 2, categoryIds);
+        product.setRating(rating);
+        product.setFeatured(itemsInStock % 8 == 0);
+        product.setItemsInStock(itemsInStock);
+        product.setReceiptDate(new Date());
+        product.setExpirationDate(itemsInStock % 3 == 0
+                                  ? null
+                                  : Date.from(Instant.now().plus(31 + itemsInStock, ChronoUnit.DAYS)));
+        return product;
+    }
+}
@@ -0,0 +1,173 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductChange;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.service.exception.ProductVersionMismatchException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.sparkequation.spring.trial.api.TestProducts.product;
+
+@SpringBootTest
+public class ProductChangeOutboxTest {
+
+    private final static int PRODUCT_ID = 15;
+    private final static String CONSUMER = "in-order";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private ProductChangeRetention productChangeRetention;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void poll_committedChangesInOrder() {
+        final List<ProductChange> changes = new ArrayList<>();
+        final ProductChangeConsumer consumer = consumer(changes);
+        consumer.poll();
+        changes.clear();
+
+        final Product product = product("Changing", 2);
+        productService.addProduct(product);
+        final ProductPatch patch = new ProductPatch();
+        patch.setRating(4.0);
+        productService.patchProductById(product.getId(), patch, null);
+        Assertions.assertThrows(
+                ProductVersionMismatchException.class,
+                () -> productService.patchProductById(product.getId(), patch, Set.of(-1))
+        );
+        productService.adjustItemsInStock(product.getId(), 3);
+        productService.deleteProductById(product.getId());
+
+        Assertions.assertEquals(4, consumer.poll());
+        Assertions.assertEquals(
+                List.of("SAVED", "SAVED", "STOCK", "DELETED"),
+                changes.stream().map(ProductChange::getChange).collect(Collectors.toList())
+        );
+        Assertions.assertTrue(changes.stream().allMatch(change -> change.getProductId() == product.getId()));
+        for (int i = 1; i < changes.size(); i++) {
+            Assertions.assertEquals(changes.get(i - 1).getSequence() + 1, changes.get(i).getSequence());
+        }
+
+        final ProductChangeConsumer resumed = consumer(changes);
+        Assertions.assertEquals(0, resumed.poll());
+        productChangeService.commitOffset(CONSUMER, changes.get(1).getSequence());
+        Assertions.assertEquals(2, resumed.poll());
+    }
+
+    @Test
+    public void append_concurrentWritersReadInOrder() throws Exception {
+        final long before = lastStoredSequence();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                futures.add(executor.submit(() -> productService.adjustItemsInStock(PRODUCT_ID, 1)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final List<ProductChange> changes = productChangeService.getChanges(before, 1000).getChanges();
+        Assertions.assertEquals(
+                40,
+                changes.stream().filter(change -> change.getProductId() == PRODUCT_ID).count()
+        );
+        for (int i = 1; i < changes.size(); i++) {
+            Assertions.assertTrue(changes.get(i - 1).getSequence() < changes.get(i).getSequence());
+        }
+    }
+
+    @Test
+    public void getChanges_heldBackAtRecentGap() {
+        final List<Long> sequences = jdbcTemplate.queryForList(
+                "SELECT NEXT VALUE FOR " + ProductChange.SEQUENCE_NAME + " FROM SYSTEM_RANGE(1, 2)",
+                Long.class
+        );
+        // The first sequence is never written, as if its transaction were still running or rolled back.
+        insertChange(sequences.get(1), new Date());
+        Assertions.assertEquals(
+                Collections.emptyList(),
+                productChangeService.getChanges(sequences.get(0) - 1, 10).getChanges()
+        );
+
+        jdbcTemplate.update(
+                "UPDATE PRODUCTCHANGE SET CHANGEDAT = ? WHERE SEQUENCE = ?",
+                new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1)),
+                sequences.get(1)
+        );
+        Assertions.assertEquals(
+                sequences.get(1),
+                productChangeService.getChanges(sequences.get(0) - 1, 10).getChanges().get(0).getSequence()
+        );
+    }
+
+    @Test
+    public void prune_expiredAndProcessedChanges() {
+        productChangeService.commitOffset("retention", 0);
+        final List<Long> sequences = jdbcTemplate.queryForList(
+                "SELECT NEXT VALUE FOR " + ProductChange.SEQUENCE_NAME + " FROM SYSTEM_RANGE(1, 2)",
+                Long.class
+        );
+        final long now = System.currentTimeMillis();
+        insertChange(sequences.get(0), new Date(now - TimeUnit.DAYS.toMillis(8)));
+        insertChange(sequences.get(1), new Date(now - TimeUnit.HOURS.toMillis(2)));
+        productService.adjustItemsInStock(PRODUCT_ID, 1);
+
+        Assertions.assertTrue(productChangeRetention.prune() >= 1);
+
+        Assertions.assertEquals(
+                List.of(sequences.get(1)),
+                jdbcTemplate.queryForList(
+                        "SELECT SEQUENCE FROM PRODUCTCHANGE WHERE SEQUENCE IN (?, ?)",
+                        Long.class,
+                        sequences.get(0),
+                        sequences.get(1)
+                )
+        );
+        Assertions.assertEquals(
+                lastStoredSequence(),
+                productChangeService.getChanges(sequences.get(1), 10).getLastSequence()
+        );
+    }
+
+    private long lastStoredSequence() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(SEQUENCE), 0) FROM PRODUCTCHANGE", Long.class);
+    }
+
+    private void insertChange(long sequence, Date changedAt) {
+        jdbcTemplate.update(
+                "INSERT INTO PRODUCTCHANGE (SEQUENCE, PRODUCTID, CHANGETYPE, CHANGEDAT) VALUES (?, ?, 'STOCK', ?)",
+                sequence,
+                PRODUCT_ID,
+                changedAt
+        );
+    }
+
+    private ProductChangeConsumer consumer(List<ProductChange> changes) {
+        return new ProductChangeConsumer(CONSUMER, productChangeService, 2, changes::add);
+    }
+}
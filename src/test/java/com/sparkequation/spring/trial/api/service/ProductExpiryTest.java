@@ -0,0 +1,119 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPage;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.sparkequation.spring.trial.api.TestProducts.product;
+
+@SpringBootTest
+public class ProductExpiryTest {
+
+    private final static long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductExpiryIndex productExpiryIndex;
+
+    @Autowired
+    private ProductExpirySweeper productExpirySweeper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void getExpiringProducts_byDayThenId() {
+        final Product later = expiring("Later", DAY_MILLIS * 34);
+        final Product first = expiring("First", DAY_MILLIS * 32);
+        final Product second = expiring("Second", DAY_MILLIS * 32);
+        final Product outside = expiring("Outside", DAY_MILLIS * 70);
+        for (Product product : List.of(later, first, second, outside)) {
+            productService.addProduct(product);
+        }
+
+        final List<Integer> ids = expiringIds(35);
+
+        Assertions.assertEquals(
+                List.of(first.getId(), second.getId(), later.getId()),
+                ids.stream()
+                   .filter(id -> List.of(first.getId(), second.getId(), later.getId()).contains(id))
+                   .collect(Collectors.toList())
+        );
+        Assertions.assertFalse(ids.contains(outside.getId()));
+        Assertions.assertTrue(expiringIds(70).contains(outside.getId()));
+    }
+
+    @Test
+    public void sweep_flagsExpiredProducts() {
+        final Product product = expiring("Expired", DAY_MILLIS * 31);
+        product.setRating(9);
+        productService.addProduct(product);
+        // Validation only accepts future dates, so time passes in the database.
+        jdbcTemplate.update(
+                "UPDATE PRODUCT SET EXPIRATIONDATE = ? WHERE ID = ?",
+                new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)),
+                product.getId()
+        );
+        productExpiryIndex.rebuild();
+        Assertions.assertTrue(expiringIds(0).contains(product.getId()));
+        Assertions.assertTrue(featuredIds().contains(product.getId()));
+
+        productExpirySweeper.sweep();
+
+        final ProductView expired = productService.getProductById(product.getId());
+        Assertions.assertTrue(expired.isExpired());
+        Assertions.assertEquals(product.getVersion() + 1, expired.getVersion());
+        Assertions.assertFalse(expiringIds(0).contains(product.getId()));
+        Assertions.assertFalse(featuredIds().contains(product.getId()));
+
+        final ProductPatch patch = new ProductPatch();
+        patch.setExpirationDate(new Date(System.currentTimeMillis() + DAY_MILLIS * 60));
+        productService.patchProductById(product.getId(), patch, null);
+
+        Assertions.assertFalse(productService.getProductById(product.getId()).isExpired());
+        Assertions.assertTrue(expiringIds(60).contains(product.getId()));
+        Assertions.assertTrue(featuredIds().contains(product.getId()));
+    }
+
+    /**
+     * Walks all the pages two products at a time.
+     */
+    private List<Integer> expiringIds(int days) {
+        final List<Integer> ids = new ArrayList<>();
+        String token = null;
+        do {
+            final ProductPage page = productService.getExpiringProducts(days, token, 2);
+            ids.addAll(page.getProducts().stream().map(ProductView::getId).collect(Collectors.toList()));
+            token = page.getNextToken();
+        } while (token != null);
+        return ids;
+    }
+
+    private List<Integer> featuredIds() {
+        return productService.getFeaturedProducts(null, 500)
+                             .getProducts()
+                             .stream()
+                             .map(ProductView::getId)
+                             .collect(Collectors.toList());
+    }
+
+    private static Product expiring(String name, long expiresIn) {
+        final Product product = product(name, 0);
+        product.setExpirationDate(new Date(System.currentTimeMillis() + expiresIn));
+        return product;
+    }
+}
@@ -0,0 +1,91 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.model.Product;
+import com.sparkequation.spring.trial.api.model.ProductPatch;
+import com.sparkequation.spring.trial.api.model.ProductView;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.sparkequation.spring.trial.api.TestProducts.product;
+
+@SpringBootTest
+public class ProductNameIndexTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductNameIndex productNameIndex;
+
+    @Test
+    public void search_wordsPrefixesTyposAndBrands() {
+        Assertions.assertEquals(List.of(3, 4), searchIds("essentuki"));
+        Assertions.assertEquals(List.of(9, 10), searchIds("Budw"));
+        Assertions.assertEquals(List.of(9, 10), searchIds("budwiesr"));
+        Assertions.assertEquals(List.of(10), searchIds("budweiser 66"));
+        Assertions.assertTrue(searchIds("bordeaux").containsAll(List.of(1, 2)));
+        Assertions.assertEquals(List.of(), searchIds("budweiser essentuki"));
+        Assertions.assertEquals(List.of(), searchIds("--"));
+    }
+
+    @Test
+    public void search_rankedByRating() {
+        productService.addProduct(product("Quokka Cider Dry", 2));
+        productService.addProduct(product("Quokka Cider Sweet", 9));
+        final List<ProductView> found = productService.searchProductsByName("quokka cider", 10);
+        Assertions.assertEquals(
+                List.of("Quokka Cider Sweet", "Quokka Cider Dry"),
+                found.stream().map(ProductView::getName).collect(Collectors.toList())
+        );
+        // An exact word still wins over a prefix of a better rated product.
+        productService.addProduct(product("Quokkas", 10));
+        Assertions.assertEquals("Quokka Cider Sweet", productService.searchProductsByName("quokka", 10)
+                                                                    .get(0)
+                                                                    .getName());
+    }
+
+    @Test
+    public void search_followsWrites() {
+        final Product product = product("Zyzzyva Crème Tonic", 5);
+        productService.addProduct(product);
+        Assertions.assertEquals(List.of(product.getId()), searchIds("zyzzyva"));
+        Assertions.assertEquals(List.of(product.getId()), searchIds("CREME"));
+
+        final ProductPatch patch = new ProductPatch();
+        patch.setName("Xanadu Tonic");
+        productService.patchProductById(product.getId(), patch, null);
+        Assertions.assertEquals(List.of(), searchIds("zyzzyva"));
+        Assertions.assertEquals(List.of(product.getId()), searchIds("xanadu"));
+
+        final int size = productNameIndex.size();
+        productNameIndex.rebuild();
+        Assertions.assertEquals(size, productNameIndex.size());
+        Assertions.assertEquals(List.of(product.getId()), searchIds("xanadu"));
+
+        productService.deleteProductById(product.getId());
+        Assertions.assertEquals(List.of(), searchIds("xanadu"));
+    }
+
+    @Test
+    public void onProductChanged_lateSaveAfterDelete() {
+        final Product product = product("Yggdrasil Mead", 5);
+        productService.addProduct(product);
+        productService.deleteProductById(product.getId());
+
+        productNameIndex.onProductChanged(ProductChangedEvent.saved(product));
+
+        Assertions.assertEquals(List.of(), searchIds("yggdrasil"));
+    }
+
+    private List<Integer> searchIds(String query) {
+        return productService.searchProductsByName(query, 20)
+                             .stream()
+                             .map(ProductView::getId)
+                             .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,188 @@
+package com.sparkequation.spring.trial.api.service;
+
+import com.sparkequation.spring.trial.api.service.exception.InsufficientStockException;
+import com.sparkequation.spring.trial.api.service.exception.NoSuchProductException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+public class ProductStockTest {
+
+    private final static int THREADS = 8;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockDeltaBuffer stockDeltaBuffer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void reserveItems_neverBelowZero() throws Exception {
+        final int productId = 10;
+        productService.adjustItemsInStock(productId, 100 - itemsInStock(productId));
+        final AtomicInteger reserved = new AtomicInteger();
+
+        runConcurrently(50, () -> {
+            try {
+                productService.reserveItems(productId, 1);
+                reserved.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                // expected once the stock is gone
+            }
+        });
+
+        Assertions.assertEquals(100, reserved.get());
+        Assertions.assertEquals(0, itemsInStock(productId));
+    }
+
+    @Test
+    public void reserveAndReleaseItems_noLostUpdates() throws Exception {
+        final int productId = 11;
+        productService.adjustItemsInStock(productId, 1000 - itemsInStock(productId));
+        final AtomicInteger reserved = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+
+        runConcurrently(2000, () -> {
+            final int count = ThreadLocalRandom.current().nextInt(1, 4);
+            if (ThreadLocalRandom.current().nextBoolean()) {
+                productService.releaseItems(productId, count);
+                released.addAndGet(count);
+                return;
+            }
+            try {
+                productService.reserveItems(productId, count);
+                reserved.addAndGet(count);
+            } catch (InsufficientStockException e) {
+                // the releases of other threads may still be pending
+            }
+        });
+        stockDeltaBuffer.flush();
+
+        Assertions.assertEquals(1000 - reserved.get() + released.get(), itemsInStock(productId));
+    }
+
+    @Test
+    public void releaseItems_writtenDirectlyOnceIdle() {
+        final int productId = 13;
+        final int itemsInStock = itemsInStock(productId);
+        productService.releaseItems(productId, 1);
+        productService.releaseItems(productId, 1);
+        stockDeltaBuffer.flush();
+        Assertions.assertEquals(itemsInStock + 2, itemsInStock(productId));
+
+        stockDeltaBuffer.flush();
+        stockDeltaBuffer.flush();
+        productService.releaseItems(productId, 1);
+
+        Assertions.assertEquals(itemsInStock + 3, itemsInStock(productId));
+    }
+
+    @Test
+    public void flush_failedWriteKeptForNextFlush() throws Exception {
+        final int lockedId = 17;
+        final int otherId = 18;
+        final int lockedItems = itemsInStock(lockedId);
+        final int otherItems = itemsInStock(otherId);
+        productService.releaseItems(lockedId, 1);
+        productService.releaseItems(otherId, 1);
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch unlock = new CountDownLatch(1);
+        // Holds the row lock of the first product, as a bulk delete would, until the flush has failed on it.
+        final CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+                status -> {
+                    jdbcTemplate.update("UPDATE PRODUCT SET ITEMSINSTOCK = ITEMSINSTOCK WHERE ID = ?", lockedId);
+                    locked.countDown();
+                    try {
+                        unlock.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+        ));
+        Assertions.assertTrue(locked.await(10, TimeUnit.SECONDS));
+        productService.releaseItems(lockedId, 2);
+        productService.releaseItems(otherId, 2);
+
+        // Keeps the scheduled flush from writing the kept releases before they are checked.
+        synchronized (stockDeltaBuffer) {
+            try {
+                stockDeltaBuffer.flush();
+            } finally {
+                unlock.countDown();
+            }
+            holder.get(10, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(lockedItems + 1, itemsInStock(lockedId));
+            Assertions.assertEquals(otherItems + 3, itemsInStock(otherId));
+        }
+        stockDeltaBuffer.flush();
+        Assertions.assertEquals(lockedItems + 3, itemsInStock(lockedId));
+    }
+
+    @Test
+    public void reserveItems_insufficientStock() {
+        final int productId = 12;
+        productService.adjustItemsInStock(productId, 2 - itemsInStock(productId));
+        Assertions.assertThrows(InsufficientStockException.class, () -> productService.reserveItems(productId, 3));
+        Assertions.assertEquals(2, itemsInStock(productId));
+    }
+
+    @Test
+    public void reserveItems_noSuchProduct() {
+        Assertions.assertThrows(NoSuchProductException.class, () -> productService.reserveItems(Integer.MAX_VALUE, 1));
+    }
+
+    private int itemsInStock(int productId) {
+        return jdbcTemplate.queryForObject("SELECT ITEMSINSTOCK FROM PRODUCT WHERE ID = ?", Integer.class, productId);
+    }
+
+    private void runConcurrently(int operationsPerThread, Runnable operation) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < operationsPerThread; j++) {
+                    operation.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+}